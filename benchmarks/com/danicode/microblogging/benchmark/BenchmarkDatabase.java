@@ -0,0 +1,142 @@
+package com.danicode.microblogging.benchmark;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static com.danicode.microblogging.services.ConnectionService.*;
+
+/**
+ * Prepara la base de datos de los benchmarks con una cantidad fija de mensajes.
+ * <p>Inserta directamente con JDBC por lotes, así que debe apuntar a una base de datos dedicada (por ejemplo con
+ * {@code -Dmicroblogging.config=bench.properties}), nunca a la de la aplicación. Para que los lotes sean rápidos en
+ * MySQL, conviene agregar {@code rewriteBatchedStatements=true} a {@code db.url}. Con {@code -Ddb.backend=h2} se
+ * usa la base de datos embebida, sin servidor.</p>
+ * <p>Los datos son deterministas: los mismos usuarios y los mismos mensajes en cada ejecución.</p>
+ */
+public final class BenchmarkDatabase {
+    public static final int USERS = 1_000;
+    public static final String USERNAME_PREFIX = "bench_user_";
+    public static final String[] WORDS = {
+            "hola", "mundo", "java", "canción", "verano", "programación", "café", "noticias", "fútbol", "película",
+            "música", "lunes", "viaje", "trabajo", "ciudad", "libro", "juego", "tarde", "mañana", "amigos"
+    };
+    private static final int BATCH_SIZE = 10_000;
+    private static final String
+        SQL_COUNT_USERS = "SELECT COUNT(*) FROM users WHERE username_key LIKE 'bench\\_user\\_%';",
+        SQL_INSERT_USER = "INSERT INTO users(name, last_name, email, username, username_key, password) " +
+                "VALUES(?, ?, ?, ?, ?, ?);",
+        SQL_SELECT_USER_IDS = "SELECT user_id FROM users WHERE username_key LIKE 'bench\\_user\\_%' ORDER BY user_id;",
+        SQL_COUNT_MESSAGES = "SELECT COUNT(*) FROM messages;",
+        SQL_INSERT_MESSAGE = "INSERT INTO messages(user_id_pk, date_time, message) VALUES(?, ?, ?);",
+        SQL_NTH_MESSAGE_ID = "SELECT message_id FROM messages ORDER BY message_id LIMIT 1 OFFSET ?;",
+        SQL_DELETE_FROM = "DELETE FROM messages WHERE message_id >= ?;";
+
+    private BenchmarkDatabase() { }
+
+    /**
+     * Deja exactamente {@code messages} mensajes en la base de datos, creando antes a los usuarios si hace falta.
+     * <p>Si ya hay menos mensajes, sólo agrega los que faltan; si hay más, borra los más nuevos.</p>
+     * @param messages Cantidad de mensajes deseada.
+     * @throws Exception Si no se pudo preparar la base de datos.
+     */
+    public static void seed(int messages) throws Exception {
+        try (var conn = getConnection()) {
+            conn.setAutoCommit(false);
+            seedUsers(conn);
+            var userIds = userIds(conn);
+            var current = count(conn, SQL_COUNT_MESSAGES);
+
+            if (current < messages) {
+                insertMessages(conn, userIds, current, messages);
+            } else if (current > messages) {
+                try (var stmt = conn.prepareStatement(SQL_NTH_MESSAGE_ID)) {
+                    stmt.setInt(1, messages);
+                    try (var rs = stmt.executeQuery()) {
+                        rs.next();
+                        try (var delete = conn.prepareStatement(SQL_DELETE_FROM)) {
+                            delete.setInt(1, rs.getInt(1));
+                            delete.executeUpdate();
+                        }
+                    }
+                }
+                conn.commit();
+            }
+        }
+    }
+
+    /**
+     * @param index Índice del usuario, entre 0 y {@code USERS - 1}.
+     * @return Devuelve el nombre de usuario de ese usuario de prueba.
+     */
+    public static String username(int index) {
+        return USERNAME_PREFIX + index;
+    }
+
+    private static void seedUsers(Connection conn) throws Exception {
+        var existing = count(conn, SQL_COUNT_USERS);
+        if (existing >= USERS) {
+            return;
+        }
+
+        try (var stmt = conn.prepareStatement(SQL_INSERT_USER)) {
+            for (var i = existing; i < USERS; i ++) {
+                stmt.setString(1, "Bench");
+                stmt.setString(2, "User " + i);
+                stmt.setString(3, username(i) + "@bench.local");
+                stmt.setString(4, username(i));
+                stmt.setString(5, username(i));
+                stmt.setString(6, "secret");
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        conn.commit();
+    }
+
+    private static int[] userIds(Connection conn) throws Exception {
+        var ids = new int[USERS];
+        try (var stmt = conn.prepareStatement(SQL_SELECT_USER_IDS); var rs = stmt.executeQuery()) {
+            for (var i = 0; i < USERS && rs.next(); i ++) {
+                ids[i] = rs.getInt(1);
+            }
+        }
+        return ids;
+    }
+
+    private static void insertMessages(Connection conn, int[] userIds, int from, int to) throws Exception {
+        var random = new Random(from);
+        var start = LocalDateTime.now().minusDays(365);
+        try (var stmt = conn.prepareStatement(SQL_INSERT_MESSAGE)) {
+            for (var i = from; i < to; i ++) {
+                stmt.setInt(1, userIds[random.nextInt(userIds.length)]);
+                stmt.setTimestamp(2, Timestamp.valueOf(start.plusSeconds(i)));
+                stmt.setString(3, text(random));
+                stmt.addBatch();
+
+                if ((i - from + 1) % BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            stmt.executeBatch();
+        }
+        conn.commit();
+    }
+
+    private static String text(Random random) {
+        var text = new StringBuilder();
+        var words = 4 + random.nextInt(12);
+        for (var i = 0; i < words; i ++) {
+            text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.length() > 140 ? text.substring(0, 140) : text.toString();
+    }
+
+    private static int count(Connection conn, String query) throws Exception {
+        try (var stmt = conn.prepareStatement(query); var rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.danicode.microblogging.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de {@code benchmarks.jar}: acepta las mismas opciones que JMH y siempre agrega el perfilador de GC.
+ * <p>Las propiedades del sistema de la aplicación ({@code db.*}, {@code microblogging.*}, etc.) se pasan a los
+ * procesos que crea JMH, así cada fork usa la misma base de datos.</p>
+ * <p>Uso: {@code java -Dmicroblogging.config=bench.properties -jar target/benchmarks.jar [opciones de JMH]}, por
+ * ejemplo {@code -p messages=10000} para medir sólo el conjunto pequeño.</p>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String... args) throws Exception {
+        var forwarded = System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("db.") || key.startsWith("microblogging.") ||
+                        key.startsWith("search.") || key.startsWith("cache."))
+                .map(key -> "-D" + key + "=" + System.getProperty(key))
+                .toArray(String[]::new);
+
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend(forwarded)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.danicode.microblogging.benchmark;
+
+import com.danicode.microblogging.constants.BlogConstants;
+import com.danicode.microblogging.model.domain.Message;
+import com.danicode.microblogging.services.AsyncService;
+import com.danicode.microblogging.services.ConnectionService;
+import com.danicode.microblogging.services.MessageService;
+import com.danicode.microblogging.services.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara las estrategias de {@code AsyncService}: un pool fijo de hilos de plataforma contra un hilo virtual por
+ * tarea, con muchas consultas de perfil y de mensajes a la vez sobre el pool de conexiones de DBCP2.
+ * <p>Cada operación es una ronda de {@code tasks} tareas concurrentes; cada tarea consulta un perfil y la primera
+ * página de mensajes de ese usuario. La concurrencia real la limita {@code db.pool.maxTotal}.</p>
+ * <p>Para ver si los hilos virtuales quedan fijados a su hilo portador durante la E/S de JDBC, agrega
+ * {@code -jvmArgsAppend -Djdk.tracePinnedThreads=short}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ExecutorBenchmark {
+    private static final int MESSAGES = 10_000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public AsyncService.Strategy strategy;
+
+    @Param({"500"})
+    public int tasks;
+
+    @Param({"8"})
+    public int threads;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.seed(MESSAGES);
+        this.executor = AsyncService.newExecutor(this.strategy, this.threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.executor.close();
+        ConnectionService.shutdown();
+    }
+
+    @Benchmark
+    public void round() {
+        var futures = new CompletableFuture<?>[this.tasks];
+        for (var i = 0; i < this.tasks; i ++) {
+            var username = BenchmarkDatabase.username(i % BenchmarkDatabase.USERS);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                var user = new UserService().getUser(username);
+                new MessageService().getPage(BlogConstants.LIST_USER_MESSAGES, new Message(user, ""),
+                        BlogConstants.ORDER_BY_NEW_MESSAGES, 0, 10);
+            }, this.executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
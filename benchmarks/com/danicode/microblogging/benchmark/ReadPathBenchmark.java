@@ -0,0 +1,89 @@
+package com.danicode.microblogging.benchmark;
+
+import com.danicode.microblogging.constants.BlogConstants;
+import com.danicode.microblogging.model.dao.implementations.DAOMessageImpl;
+import com.danicode.microblogging.model.dao.implementations.DAOUserImpl;
+import com.danicode.microblogging.model.domain.Message;
+import com.danicode.microblogging.model.domain.User;
+import com.danicode.microblogging.services.ConnectionService;
+import com.danicode.microblogging.services.MessageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las rutas de lectura más usadas de la capa DAO y de servicios con 10 mil, 1 millón y 10 millones de mensajes.
+ * <p>Cada benchmark reporta el rendimiento y la distribución de latencias (p50, p99); {@code BenchmarkRunner} agrega
+ * el perfilador de GC para la tasa de asignación.</p>
+ * <p>{@code list} materializa todos los mensajes: con 10 millones necesita varios GB de heap, por eso cada fork usa
+ * {@code -Xmx8g}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class ReadPathBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int messages;
+
+    private final DAOMessageImpl messageDao = new DAOMessageImpl();
+    private final DAOUserImpl userDao = new DAOUserImpl();
+    private final MessageService messageService = new MessageService();
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        BenchmarkDatabase.seed(this.messages);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        ConnectionService.shutdown();
+    }
+
+    /**
+     * Valores aleatorios por hilo, para no medir siempre al mismo usuario ni la misma palabra.
+     */
+    @State(Scope.Thread)
+    public static class Input {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        public String username() {
+            return BenchmarkDatabase.username(this.random.nextInt(BenchmarkDatabase.USERS));
+        }
+
+        public String word() {
+            return BenchmarkDatabase.WORDS[this.random.nextInt(BenchmarkDatabase.WORDS.length)];
+        }
+    }
+
+    @Benchmark
+    public List<Message> messageList() throws Exception {
+        return this.messageDao.list();
+    }
+
+    @Benchmark
+    public List<Message> messagesByUsername(Input input) throws Exception {
+        return this.messageDao.findByUsername(input.username(), BlogConstants.ORDER_BY_NEW_MESSAGES);
+    }
+
+    @Benchmark
+    public List<Message> messagesByText(Input input) throws Exception {
+        return this.messageDao.findByMessage(input.word(), BlogConstants.ORDER_BY_NEW_MESSAGES);
+    }
+
+    @Benchmark
+    public User userByUsername(Input input) throws Exception {
+        return this.userDao.findByUsername(input.username());
+    }
+
+    @Benchmark
+    public List<Message> sortedUserMessages(Input input) {
+        var filter = new Message(new User("", "", "", input.username(), ""), "");
+        return this.messageService.sortedMessages(BlogConstants.ORDER_BY_NEW_MESSAGES,
+                BlogConstants.LIST_USER_MESSAGES, filter);
+    }
+}
@@ -13,6 +13,7 @@ public interface BlogConstants {
     int LIST_USER_MESSAGES = 1;
     int LIST_BY_MESSAGE = 2;
     int LIST_MY_MESSAGES = 3;
+    String DATE_TIME_FORMAT = "EEE, dd-MM-yyyy hh:mm:ss a";
     String CHARACTERS_REMAINING = "Caracteres restantes: ";
     String SEARCH_MESSAGES = "Todos los Mensajes";
     String SEARCH_BY_MESSAGE = "Por mensaje";
@@ -20,4 +21,5 @@ public interface BlogConstants {
     String SEARCH_BY_USER_LOGGED = "Mis mensajes";
     String ORDER_BY_NEW_MESSAGES = "Más recientes a más viejos";
     String ORDER_BY_OLD_MESSAGES = "Más viejos a más recientes";
+    String ORDER_BY_RELEVANCE = "Más relevantes";
 }
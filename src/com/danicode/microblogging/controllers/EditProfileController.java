@@ -2,9 +2,11 @@ package com.danicode.microblogging.controllers;
 
 import com.danicode.microblogging.gui.users.GUIEditProfile;
 import com.danicode.microblogging.model.domain.User;
+import com.danicode.microblogging.services.AsyncService;
 import com.danicode.microblogging.services.UserService;
 
 import javax.swing.*;
+import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.Arrays;
 
@@ -16,6 +18,7 @@ public class EditProfileController {
     private final UserService service;
     private final User user;
     private String name, lastName, email, password;
+    private boolean loading;
 
     /**
      * Con éste constructor, haces visible la interfaz gráfica de usuario para editar un perfil de usuario.
@@ -52,23 +55,48 @@ public class EditProfileController {
         this.password = new String(this.template.getPfPassword().getPassword());
     }
 
+    /**
+     * Muestra u oculta el estado de carga mientras se consulta la base de datos.
+     * @param loading Indica si hay una consulta en curso.
+     * */
+    private void setLoading(boolean loading) {
+        this.loading = loading;
+        this.template.getBAccept().setEnabled(!loading);
+        this.template.getBDelete().setEnabled(!loading);
+        this.template.setCursor(Cursor.getPredefinedCursor(loading ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+    }
+
+    /**
+     * Quita el estado de carga y avisa al usuario que la operación falló.
+     * @param ex Error ocurrido.
+     * */
+    private void onError(Throwable ex) {
+        this.setLoading(false);
+        JOptionPane.showMessageDialog(null, "Algo ha ocurrido mal");
+    }
+
     /**
      * Chequea condiciones y si los datos están bien, actualiza el usuario en la base de datos.
      * */
     private void apply() {
+        if (this.loading) {
+            return;
+        }
+
         this.setData();
         var isBlank = this.name.equals("") || this.lastName.equals("") || this.email.equals("") || this.password.equals("");
-        var message = "";
 
         if (!isBlank) {
             var newUser = new User(this.user.getIdUser(), this.name, this.lastName, email, this.user.getUsername(), this.password);
-            message = this.service.updateUser(newUser) ? "Usuario actualizado correctamente" : "Algo ha ocurrido mal";
+            this.setLoading(true);
+            AsyncService.submit(() -> this.service.updateUser(newUser), updated -> {
+                this.setLoading(false);
+                JOptionPane.showMessageDialog(null, updated ? "Usuario actualizado correctamente" : "Algo ha ocurrido mal");
+            }, this::onError);
         }
         else {
-            message = "Por favor, llena todos los campos";
+            JOptionPane.showMessageDialog(null, "Por favor, llena todos los campos");
         }
-
-        JOptionPane.showMessageDialog(null, message);
     }
 
     /**
@@ -78,17 +106,21 @@ public class EditProfileController {
         var option = JOptionPane.showConfirmDialog(null, "¿Estás seguro de que deseas borrar tu perfil?\n" +
                         "@" + this.user.getUsername(), "Consulta", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
 
-        if (option == JOptionPane.YES_OPTION) {
-            var deleted = this.service.deleteUser(this.user.getIdUser());
-            var message = deleted ? "¡Usuario borrado correctamente!" : "Algo ha ocurrido mal";
-            JOptionPane.showMessageDialog(null, message);
-
-            if (deleted) {
-                this.service.resetUserLogged();
-                new LogInController();
-                this.template.getOwner().dispose();
-                this.template.dispose();
-            }
+        if (option == JOptionPane.YES_OPTION && !this.loading) {
+            var idUser = this.user.getIdUser();
+            this.setLoading(true);
+            AsyncService.submit(() -> this.service.deleteUserCascade(idUser), deleted -> {
+                this.setLoading(false);
+                var message = deleted ? "¡Usuario borrado correctamente!" : "Algo ha ocurrido mal";
+                JOptionPane.showMessageDialog(null, message);
+
+                if (deleted) {
+                    this.service.resetUserLogged();
+                    new LogInController();
+                    this.template.getOwner().dispose();
+                    this.template.dispose();
+                }
+            }, this::onError);
         }
     }
 
@@ -4,9 +4,12 @@ import com.danicode.microblogging.gui.login.GUILogIn;
 import com.danicode.microblogging.gui.login.LogInTemplate;
 import com.danicode.microblogging.gui.login.SignUpTemplate;
 import com.danicode.microblogging.model.domain.User;
+import com.danicode.microblogging.services.AsyncService;
+import com.danicode.microblogging.services.RegistrationResult;
 import com.danicode.microblogging.services.UserService;
 
 import javax.swing.*;
+import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.Arrays;
 
@@ -19,6 +22,7 @@ public class LogInController {
     private final SignUpTemplate signUpTemplate;
     private final UserService userService;
     private User user;
+    private boolean loading;
     private String logUsername, logPassword, signName, signLastName, signEmail, signUsername, signPassword;
 
     /**
@@ -56,11 +60,33 @@ public class LogInController {
 
     /**
      * Hace una consulta a la base de datos y establece al usuario logueado.
+     * <p>Se ejecuta fuera del EDT, por lo que recibe al usuario en lugar de leer los campos de texto.</p>
+     * @param userToLog Usuario a loguearse.
      * @return Devuelve verdadero si no ocurrió ningún error.
      * */
-    private boolean setUserLogged() {
-        this.user = new User("", "", this.logUsername, this.logUsername, this.logPassword);
-        return this.userService.setUserLogged(this.user);
+    private boolean setUserLogged(User userToLog) {
+        return this.userService.setUserLogged(userToLog);
+    }
+
+    /**
+     * Muestra u oculta el estado de carga mientras se consulta la base de datos.
+     * @param loading Indica si hay una consulta en curso.
+     * */
+    private void setLoading(boolean loading) {
+        this.loading = loading;
+        this.logInTemplate.getbLogIn().setEnabled(!loading);
+        this.signUpTemplate.getBSignUp().setEnabled(!loading);
+        this.logIn.setCursor(Cursor.getPredefinedCursor(loading ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+    }
+
+    /**
+     * Quita el estado de carga y avisa al usuario que la consulta falló.
+     * @param ex Error ocurrido.
+     * */
+    private void onError(Throwable ex) {
+        this.setLoading(false);
+        JOptionPane.showMessageDialog(null, "No fue posible conectar con la base de datos",
+                "Error", JOptionPane.ERROR_MESSAGE);
     }
 
     /**
@@ -78,14 +104,24 @@ public class LogInController {
      * Realiza varias validaciones y va al menú principal si los datos están bien introducidos.
      * */
     private void logIn() {
+        if (this.loading) {
+            return;
+        }
+
         if (!this.isLogInEmpty()) {
-            if (this.setUserLogged()) {
-                this.run();
-            }
-            else {
-                JOptionPane.showMessageDialog(null, "Verifica los datos nuevamente",
-                        "Datos no coinciden", JOptionPane.WARNING_MESSAGE);
-            }
+            this.user = new User("", "", this.logUsername, this.logUsername, this.logPassword);
+            var userToLog = this.user;
+            this.setLoading(true);
+            AsyncService.submit(() -> this.setUserLogged(userToLog), logged -> {
+                this.setLoading(false);
+                if (logged) {
+                    this.run();
+                }
+                else {
+                    JOptionPane.showMessageDialog(null, "Verifica los datos nuevamente",
+                            "Datos no coinciden", JOptionPane.WARNING_MESSAGE);
+                }
+            }, this::onError);
         }
         else {
             JOptionPane.showMessageDialog(null, "Por favor, llena los datos para iniciar sesión",
@@ -117,23 +153,33 @@ public class LogInController {
 
     /**
      * Consulta a la base de datos si pudo registrar un nuevo usuario
-     * @return Devuelve verdadero si no hubo ningún error
+     * <p>Se ejecuta fuera del EDT, por lo que recibe al usuario en lugar de leer los campos de texto.</p>
+     * @param newUser Usuario a registrar.
+     * @return Devuelve el resultado del registro, indicando qué dato ya estaba registrado si no se pudo registrar.
      * */
-    private boolean newUserRegistered() {
-        this.user = new User(this.signName, this.signLastName, this.signEmail, this.signUsername, this.signPassword);
-        return this.userService.registerNewUser(this.user);
+    private RegistrationResult newUserRegistered(User newUser) {
+        return this.userService.registerNewUser(newUser);
     }
 
     /**
      * Simplemente muestra un mensaje dependiendo si se logró registrar el usuario.
      * */
     private void signUp() {
+        if (this.loading) {
+            return;
+        }
+
         if (!this.isSignUpEmpty()) {
-            var message = this.newUserRegistered() ? "¡Usuario registrado con éxito!" :
-                    "El nombre de usuario y/o correo electrónico ya se encuentra registrado";
-            var title = this.newUserRegistered() ? "Nuevo usuario: " + this.user.getUsername() :
-                    "No fue posible registrarte";
-            JOptionPane.showMessageDialog(null, message, title, JOptionPane.INFORMATION_MESSAGE);
+            this.user = new User(this.signName, this.signLastName, this.signEmail, this.signUsername, this.signPassword);
+            var newUser = this.user;
+            this.setLoading(true);
+            AsyncService.submit(() -> this.newUserRegistered(newUser), result -> {
+                this.setLoading(false);
+                var registered = result == RegistrationResult.REGISTERED;
+                var title = registered ? "Nuevo usuario: " + newUser.getUsername() : "No fue posible registrarte";
+                JOptionPane.showMessageDialog(null, result.getDescription(), title,
+                        registered ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+            }, this::onError);
         }
         else {
             JOptionPane.showMessageDialog(null, "Por favor, llena todos los campos para registrarte",
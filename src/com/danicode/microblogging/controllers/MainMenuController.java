@@ -1,8 +1,9 @@
 package com.danicode.microblogging.controllers;
 
-import com.danicode.microblogging.constants.BlogConstants;
 import com.danicode.microblogging.gui.mainmenu.GUIAboutUs;
 import com.danicode.microblogging.gui.mainmenu.GUIMainMenu;
+import com.danicode.microblogging.services.AsyncService;
+import com.danicode.microblogging.services.ConnectionService;
 import com.danicode.microblogging.services.MessageService;
 import com.danicode.microblogging.services.UserService;
 
@@ -35,12 +36,40 @@ public class MainMenuController {
         this.template.dispose();
     }
 
+    /**
+     * Cierra el pool de conexiones y termina la aplicación.
+     */
+    private void exit() {
+        ConnectionService.shutdown();
+        System.exit(0);
+    }
+
     /**
      * Hace varias validaciones y borra los mensajes del usuario logueado si no hay ningún error.
      */
     private void deletePosts() {
         var service = new MessageService();
-        var size = service.getMessages(BlogConstants.LIST_MY_MESSAGES, null).size();
+        this.template.getPostingDelete().setEnabled(false);
+        var idUser = this.userService.getUserLogged().getIdUser();
+        AsyncService.submit(() -> service.countUserMessages(idUser), size -> {
+            this.template.getPostingDelete().setEnabled(true);
+            if (size < 0) {
+                JOptionPane.showMessageDialog(null, "Ha habido un error");
+                return;
+            }
+            this.confirmDeletePosts(service, size);
+        }, ex -> {
+            this.template.getPostingDelete().setEnabled(true);
+            JOptionPane.showMessageDialog(null, "Ha habido un error");
+        });
+    }
+
+    /**
+     * Pide confirmación al usuario y borra sus mensajes en segundo plano.
+     * @param service Servicio de mensajes a utilizar.
+     * @param size Cantidad de mensajes publicados por el usuario logueado.
+     */
+    private void confirmDeletePosts(MessageService service, int size) {
         if (size < 1) {
             JOptionPane.showMessageDialog(null,
                     "No tienes mensajes publicados, prueba a publicar uno en la sección Posting -> Publicar");
@@ -52,9 +81,10 @@ public class MainMenuController {
                     JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
             if (option == JOptionPane.YES_OPTION) {
-                var deleted = service.deleteUserMessages();
-                var confirm = deleted ? "¡Todos sus mensajes han sido eliminados correctamente!" : "Ha habido un error";
-                JOptionPane.showMessageDialog(null, confirm);
+                AsyncService.submit(service::deleteUserMessages, deleted -> {
+                    var confirm = deleted ? "¡Todos sus mensajes han sido eliminados correctamente!" : "Ha habido un error";
+                    JOptionPane.showMessageDialog(null, confirm);
+                }, ex -> JOptionPane.showMessageDialog(null, "Ha habido un error"));
             }
         }
     }
@@ -65,7 +95,7 @@ public class MainMenuController {
     private void setActions() {
         this.template.getAboutUs().addActionListener(e -> new GUIAboutUs(this.template));
         this.template.getProfileVisualize().addActionListener(e -> new ViewProfileController(this.template, this.userService.getUserLogged()));
-        this.template.getFileExit().addActionListener(e -> System.exit(0));
+        this.template.getFileExit().addActionListener(e -> this.exit());
         this.template.getPostingPost().addActionListener(e -> new PostEditMessageController(this.template));
         this.template.getPostingSurf().addActionListener(e -> new ViewMessagesController(this.template));
         this.template.getProfileEdit().addActionListener(e -> new EditProfileController(this.template, this.userService.getUserLogged()));
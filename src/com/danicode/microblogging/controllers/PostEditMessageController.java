@@ -3,6 +3,7 @@ package com.danicode.microblogging.controllers;
 import com.danicode.microblogging.gui.messages.GUIEditMessage;
 import com.danicode.microblogging.gui.messages.GUIPostMessage;
 import com.danicode.microblogging.model.domain.Message;
+import com.danicode.microblogging.services.AsyncService;
 import com.danicode.microblogging.services.MessageService;
 import com.danicode.microblogging.services.UserService;
 
@@ -100,8 +101,16 @@ public class PostEditMessageController implements DocumentListener {
             var edit = this.messageToUpdate != null;
             if (edit) message.setIdMessage(this.messageToUpdate.getIdMessage());
 
-            this.checkAction(edit ? this.messageService.editMessage(message) : this.messageService.createMessage(message),
-                    edit ? "Mensaje actualizado con éxito" : "Mensaje publicado con éxito");
+            this.postMessage.getBPost().setEnabled(false);
+            AsyncService.submit(
+                    () -> edit ? this.messageService.editMessage(message) : this.messageService.createMessage(message),
+                    done -> {
+                        this.postMessage.getBPost().setEnabled(true);
+                        this.checkAction(done, edit ? "Mensaje actualizado con éxito" : "Mensaje publicado con éxito");
+                    }, ex -> {
+                        this.postMessage.getBPost().setEnabled(true);
+                        this.checkAction(false, "");
+                    });
         }
         else {
             JOptionPane.showMessageDialog(null, "El mensaje debe tener entre 1 y 140 caracteres");
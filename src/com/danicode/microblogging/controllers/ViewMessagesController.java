@@ -5,26 +5,38 @@ import com.danicode.microblogging.gui.messages.GUIViewMessages;
 import com.danicode.microblogging.gui.messages.ViewPostTemplate;
 import com.danicode.microblogging.model.domain.Message;
 import com.danicode.microblogging.model.domain.User;
+import com.danicode.microblogging.services.AsyncService;
 import com.danicode.microblogging.services.MessageService;
 import com.danicode.microblogging.services.UserService;
 
 import javax.swing.*;
+import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Esta clase se encarga de toda la lógica para mostrar los mensajes.
  */
 public class ViewMessagesController {
-    private int currentPage = 1, totalPages;
-    private List<Message> messages;
+    private int currentPage = 1, filter = BlogConstants.LIST_MESSAGES;
+    private boolean hasNextPage;
+    private String order = BlogConstants.ORDER_BY_NEW_MESSAGES;
+    private Message filterMessage;
+    private List<Message> messages = new ArrayList<>();
+    private CompletableFuture<Void> pendingTask;
+    private final List<Integer> cursors = new ArrayList<>();
     private JLabel lPageIndex;
     private final GUIViewMessages messagesTemplate;
     private final MessageService service;
     private final User userLogged;
     private final ViewPostTemplate[] postTemplate;
     private static final int MAX_MESSAGES = 10;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(BlogConstants.DATE_TIME_FORMAT);
 
     /**
      * Muestra la interfaz gráfica de mensajes e interactúa con los usuarios y la base de datos.
@@ -38,36 +50,113 @@ public class ViewMessagesController {
         this.messagesTemplate = new GUIViewMessages(owner);
         this.service = new MessageService();
         this.userLogged = new UserService().getUserLogged();
-        this.messages = this.service.sortedMessages(BlogConstants.ORDER_BY_NEW_MESSAGES, BlogConstants.LIST_MESSAGES, null);
         this.postTemplate = new ViewPostTemplate[MAX_MESSAGES];
         this.init();
     }
 
     /**
-     * Establece el número total de páginas según la cantidad de mensajes almacenados.
+     * Consulta a la base de datos sólo la página indicada por el cursor.
+     * <p>Pide un mensaje extra para saber si existe una página siguiente, sin necesidad de contar todos los mensajes.</p>
+     * @param filter Preferible usar BlogConstants para los filtros, tienen como sufijo {@code LIST}.
+     * @param message Mensaje con los datos del filtro.
+     * @param order Puede ser {@code ORDER_BY_NEW_MESSAGES}, {@code ORDER_BY_OLD_MESSAGES} o, al buscar por mensaje,
+     *              {@code ORDER_BY_RELEVANCE}.
+     * @param cursor Id del último mensaje de la página anterior, {@code 0} para la primera página.
+     *               <p>En la búsqueda por relevancia es la cantidad de mensajes de las páginas anteriores.</p>
+     * @return Devuelve los mensajes de la página, o una lista vacía si no encuentra elementos.
      */
-    private void setTotalPages() {
-        this.totalPages = 0;
-        for (int i = 0; i < this.messages.size(); i ++) {
-            if (i % MAX_MESSAGES == 0) {
-                this.totalPages ++;
-            }
+    private List<Message> fetchPage(int filter, Message message, String order, int cursor) {
+        var page = isRanked(filter, order)
+                ? this.service.searchMessages(message.getMessage(), cursor, MAX_MESSAGES + 1)
+                : this.service.getPage(filter, message, order, cursor, MAX_MESSAGES + 1);
+        return page != null ? page : new ArrayList<>();
+    }
+
+    /**
+     * @return Devuelve true si la búsqueda se ordena por relevancia, es decir, si se busca por mensaje con el
+     * orden {@code ORDER_BY_RELEVANCE}. Con los demás filtros ese orden muestra primero los más recientes.
+     */
+    private static boolean isRanked(int filter, String order) {
+        return filter == BlogConstants.LIST_BY_MESSAGE && BlogConstants.ORDER_BY_RELEVANCE.equals(order);
+    }
+
+    /**
+     * Consulta una página en segundo plano, mostrando el estado de carga mientras tanto.
+     * <p>Si había otra consulta en curso, se cancela para que su resultado no reemplace al de ésta.</p>
+     * @param filter Preferible usar BlogConstants para los filtros, tienen como sufijo {@code LIST}.
+     * @param message Mensaje con los datos del filtro.
+     * @param order Ver la documentación de {@code fetchPage}.
+     * @param cursor Ver la documentación de {@code fetchPage}.
+     * @param onLoaded Acción que recibe la página consultada, se ejecuta en el EDT.
+     */
+    private void loadPage(int filter, Message message, String order, int cursor, Consumer<List<Message>> onLoaded) {
+        this.cancelPendingTask();
+        this.setLoading(true);
+        this.pendingTask = AsyncService.submit(() -> this.fetchPage(filter, message, order, cursor), page -> {
+            this.setLoading(false);
+            onLoaded.accept(page);
+        }, ex -> {
+            this.setLoading(false);
+            this.resetLabel();
+            JOptionPane.showMessageDialog(null, "Algo salió mal");
+        });
+    }
+
+    /**
+     * @return Devuelve true si hay una consulta en curso.
+     */
+    private boolean isLoading() {
+        return this.pendingTask != null && !this.pendingTask.isDone();
+    }
+
+    /**
+     * Cancela la consulta en curso, si existe, y restablece el estado de la ventana.
+     */
+    private void cancelPendingTask() {
+        if (this.isLoading()) {
+            this.pendingTask.cancel(false);
+            this.setLoading(false);
+            this.resetLabel();
+        }
+    }
+
+    /**
+     * Muestra u oculta el estado de carga. Mientras carga, el botón de búsqueda sirve para cancelar la consulta.
+     * @param loading Indica si hay una consulta en curso.
+     */
+    private void setLoading(boolean loading) {
+        this.messagesTemplate.getBSearch().setText(loading ? "Cancelar" : "Buscar");
+        this.messagesTemplate.getBNext().setEnabled(!loading);
+        this.messagesTemplate.getBPrevious().setEnabled(!loading);
+        this.messagesTemplate.getCbOrderType().setEnabled(!loading);
+        this.messagesTemplate.getCbSearchType().setEnabled(!loading);
+        this.messagesTemplate.setCursor(Cursor.getPredefinedCursor(loading ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+        if (loading) {
+            this.lPageIndex.setText("Cargando...");
         }
     }
 
     /**
-     * Indica mediante un label la página actual y la cantidad total de páginas.
+     * Establece la página consultada como la página actual.
+     * @param page Mensajes obtenidos mediante {@code fetchPage}.
+     */
+    private void setPage(List<Message> page) {
+        this.hasNextPage = page.size() > MAX_MESSAGES;
+        this.messages = this.hasNextPage ? page.subList(0, MAX_MESSAGES) : page;
+    }
+
+    /**
+     * Indica mediante un label la página actual.
      */
     private void resetLabel() {
-        this.lPageIndex.setText("Página " + this.currentPage + " de " + this.totalPages);
+        this.lPageIndex.setText("Página " + this.currentPage);
     }
 
     /**
-     * Crea y muestra el indicador de páginas
+     * Crea el indicador de páginas, se muestra debajo de los postTemplate.
      */
     private void createLabel() {
-        this.lPageIndex = new JLabel("Página " + this.currentPage + " de " + this.totalPages);
-        this.messagesTemplate.getCenterPane().add(this.lPageIndex);
+        this.lPageIndex = new JLabel("Página " + this.currentPage);
     }
 
     /**
@@ -76,54 +165,42 @@ public class ViewMessagesController {
      * @param message Mensaje de donde se obtendrán los datos.
      */
     private void setData(int index, Message message) {
+        this.postTemplate[index].setMessage(message);
         this.postTemplate[index].getLFullName().setText(message.getUser().getName() + " " + message.getUser().getLastName());
         this.postTemplate[index].getLUsername().setText("@" + message.getUser().getUsername());
-        this.postTemplate[index].getLDateTime().setText(message.getDateTime());
+        this.postTemplate[index].getLDateTime().setText(message.getDateTime().format(DATE_TIME_FORMATTER));
         this.postTemplate[index].getTaMessage().setText(message.getMessage());
     }
 
     /**
-     * Carga los primeros 10 mensajes según el filtro indicado en el constructor y los muestra.
+     * Crea los postTemplate y carga en segundo plano los primeros 10 mensajes según el filtro inicial.
      */
     private void loadMainData() {
         for (int i = 0; i < MAX_MESSAGES; i ++) {
             this.postTemplate[i] = new ViewPostTemplate();
             this.postTemplate[i].addMouseListener(this.popupAction(i));
             this.setActions(i);
+            this.postTemplate[i].setVisible(false);
             this.messagesTemplate.getCenterPane().add(this.postTemplate[i]);
-            try {
-                this.setData(i, this.messages.get(i));
-            } catch (IndexOutOfBoundsException ex) {
-                this.postTemplate[i].setVisible(false);
-            }
         }
-    }
+        this.messagesTemplate.getCenterPane().add(this.lPageIndex);
 
-    /**
-     * Resetea la página actual a 1, en caso de que al cargar una lista de mensajes, la página actual sea superior al
-     * número total de páginas.
-     */
-    private void checkCurrentPage() {
-        if (this.currentPage > this.totalPages) {
-            this.currentPage = 1;
-        }
+        this.loadPage(this.filter, null, this.order, 0, page -> {
+            this.setPage(page);
+            this.refreshPage();
+        });
     }
 
     /**
      * Actualiza todos los datos y los postTemplate.
      */
     private void refreshPage() {
-        this.setTotalPages();
-        this.checkCurrentPage();
-
-        var elements = (this.currentPage - 1) * MAX_MESSAGES;
-
-        for (int i = elements, j = 0; j < MAX_MESSAGES; i ++, j ++) {
+        for (int i = 0; i < MAX_MESSAGES; i ++) {
             try {
-                this.setData(j, this.messages.get(i));
-                this.postTemplate[j].setVisible(true);
+                this.setData(i, this.messages.get(i));
+                this.postTemplate[i].setVisible(true);
             } catch (IndexOutOfBoundsException ex) {
-                this.postTemplate[j].setVisible(false);
+                this.postTemplate[i].setVisible(false);
             }
         }
 
@@ -131,22 +208,35 @@ public class ViewMessagesController {
     }
 
     /**
-     * Incrementa la página actual y actualiza los datos.
+     * Consulta la página siguiente a partir del último mensaje mostrado y actualiza los datos.
+     * <p>En la búsqueda por relevancia, la página siguiente empieza después de los mensajes ya mostrados.</p>
      */
     private void nextPage() {
-        if (this.currentPage < this.totalPages) {
-            this.currentPage ++;
-            this.refreshPage();
+        if (this.hasNextPage && !this.isLoading()) {
+            var cursor = isRanked(this.filter, this.order)
+                    ? this.cursors.get(this.cursors.size() - 1) + this.messages.size()
+                    : this.messages.get(this.messages.size() - 1).getIdMessage();
+            this.loadPage(this.filter, this.filterMessage, this.order, cursor, page -> {
+                this.cursors.add(cursor);
+                this.currentPage ++;
+                this.setPage(page);
+                this.refreshPage();
+            });
         }
     }
 
     /**
-     * Decrementa la página actual y actualiza los datos.
+     * Vuelve a consultar la página anterior mediante su cursor y actualiza los datos.
      */
     private void previousPage() {
-        if (this.currentPage > 1) {
-            this.currentPage --;
-            this.refreshPage();
+        if (this.currentPage > 1 && !this.isLoading()) {
+            var cursor = this.cursors.get(this.cursors.size() - 2);
+            this.loadPage(this.filter, this.filterMessage, this.order, cursor, page -> {
+                this.cursors.remove(this.cursors.size() - 1);
+                this.currentPage --;
+                this.setPage(page);
+                this.refreshPage();
+            });
         }
     }
 
@@ -155,6 +245,11 @@ public class ViewMessagesController {
      * para actualizar los datos.
      */
     private void checkSearchResult() {
+        if (this.isLoading()) {
+            this.cancelPendingTask();
+            return;
+        }
+
         var optionSelected = String.valueOf(this.messagesTemplate.getCbSearchType().getSelectedItem());
         if (optionSelected.equals(BlogConstants.SEARCH_BY_MESSAGE)) {
             this.search(BlogConstants.LIST_BY_MESSAGE);
@@ -187,14 +282,22 @@ public class ViewMessagesController {
         }
 
         var order = String.valueOf(this.messagesTemplate.getCbOrderType().getSelectedItem());
-        this.messages = service.sortedMessages(order, filter, message);
-
-        if (!this.messages.isEmpty()) {
-            this.refreshPage();
-        }
-        else {
-            JOptionPane.showMessageDialog(null, "No se han encontrado resultados");
-        }
+        this.loadPage(filter, message, order, 0, page -> {
+            if (!page.isEmpty()) {
+                this.filter = filter;
+                this.filterMessage = message;
+                this.order = order;
+                this.currentPage = 1;
+                this.cursors.clear();
+                this.cursors.add(0);
+                this.setPage(page);
+                this.refreshPage();
+            }
+            else {
+                this.resetLabel();
+                JOptionPane.showMessageDialog(null, "No se han encontrado resultados");
+            }
+        });
     }
 
     /**
@@ -217,19 +320,17 @@ public class ViewMessagesController {
      * @param index Índice del postTemplate.
      */
     private void viewProfile(int index) {
-        var username = this.postTemplate[index].getLUsername().getText().split("@");
-        var profile = this.service.getAuthor(username[1]);
+        var profile = this.postTemplate[index].getMessage().getUser();
         new ViewProfileController(this.messagesTemplate, profile);
     }
 
     /**
-     * Verifica que el nombre de usuario del postTemplate, coincida con el mismo del usuario logueado.
+     * Verifica que el autor del mensaje del postTemplate, sea el usuario logueado.
      * @param index Índice del postTemplate.
      * @return Devuelve true si los datos coinciden.
      */
     private boolean isUserLoggedMessage(int index) {
-        var username = this.postTemplate[index].getLUsername().getText().split("@")[1];
-        return this.userLogged.getUsername().equals(username);
+        return this.userLogged.getIdUser() == this.postTemplate[index].getMessage().getUser().getIdUser();
     }
 
     /**
@@ -238,8 +339,7 @@ public class ViewMessagesController {
      */
     private void editMessage(int index) {
         if (this.isUserLoggedMessage(index)) {
-            var dateTime = this.postTemplate[index].getLDateTime().getText();
-            var messageToEdit = this.service.getMessage(dateTime);
+            var messageToEdit = this.postTemplate[index].getMessage();
             new PostEditMessageController(this.messagesTemplate, messageToEdit);
         }
         else {
@@ -254,16 +354,16 @@ public class ViewMessagesController {
      */
     private void deleteMessage(int index) {
         if (this.isUserLoggedMessage(index)) {
-            var dateTime = this.postTemplate[index].getLDateTime().getText();
-            var idMessage = this.service.getMessage(dateTime).getIdMessage();
+            var idMessage = this.postTemplate[index].getMessage().getIdMessage();
 
             var option = JOptionPane.showConfirmDialog(null, "¿Estás seguro de eliminar el mensaje?",
                     "Consulta", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
 
             if (option == JOptionPane.YES_OPTION) {
-                var confirm = this.service.deleteMessage(idMessage) ?
-                        "¡Mensaje eliminado correctamente!" : "Algo ocurrió mal";
-                JOptionPane.showMessageDialog(null, confirm);
+                AsyncService.submit(() -> this.service.deleteMessage(idMessage), deleted -> {
+                    var confirm = deleted ? "¡Mensaje eliminado correctamente!" : "Algo ocurrió mal";
+                    JOptionPane.showMessageDialog(null, confirm);
+                }, ex -> JOptionPane.showMessageDialog(null, "Algo ocurrió mal"));
             }
         }
         else {
@@ -286,7 +386,10 @@ public class ViewMessagesController {
      * Estblaece las acciones de cada botón y el campo de texto para buscar.
      */
     private void setActions() {
-        this.messagesTemplate.getBExit().addActionListener(e -> this.messagesTemplate.dispose());
+        this.messagesTemplate.getBExit().addActionListener(e -> {
+            this.cancelPendingTask();
+            this.messagesTemplate.dispose();
+        });
         this.messagesTemplate.getBNext().addActionListener(e -> this.nextPage());
         this.messagesTemplate.getBPrevious().addActionListener(e -> this.previousPage());
         this.messagesTemplate.getBSearch().addActionListener(e -> this.checkSearchResult());
@@ -297,9 +400,9 @@ public class ViewMessagesController {
      * Inicializa los métodos necesarios para iniciar el controlador.
      */
     private void init() {
-        this.setTotalPages();
+        this.cursors.add(0);
         this.setActions();
-        this.loadMainData();
         this.createLabel();
+        this.loadMainData();
     }
 }
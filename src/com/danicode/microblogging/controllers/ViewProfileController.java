@@ -2,20 +2,21 @@ package com.danicode.microblogging.controllers;
 
 import com.danicode.microblogging.constants.BlogConstants;
 import com.danicode.microblogging.gui.users.GUIViewProfile;
-import com.danicode.microblogging.model.domain.Message;
 import com.danicode.microblogging.model.domain.User;
-import com.danicode.microblogging.services.MessageService;
+import com.danicode.microblogging.model.domain.UserStats;
+import com.danicode.microblogging.services.AsyncService;
+import com.danicode.microblogging.services.UserService;
 
 import java.awt.*;
-import java.util.List;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Permite visualizar el perfil de un usuario.
  */
 public class ViewProfileController {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(BlogConstants.DATE_TIME_FORMAT);
     private final GUIViewProfile template;
     private final User user;
-    private final List<Message> userMessages;
 
     /**
      * Es necesario pasar el usuario por parámetro, para así extraer los datos y visualizarlos.
@@ -25,11 +26,40 @@ public class ViewProfileController {
      */
     public ViewProfileController(Window owner, User user) {
         this.user = user;
-        var message = new Message(user, "");
-        this.userMessages = new MessageService().getMessages(BlogConstants.LIST_USER_MESSAGES, message);
         this.template = new GUIViewProfile(owner);
         this.template.getBExit().addActionListener(l -> this.template.dispose());
         this.setLabelTexts();
+        this.loadStats();
+    }
+
+    /**
+     * Consulta en segundo plano las estadísticas del usuario, que se leen de {@code user_stats} con una sola consulta.
+     */
+    private void loadStats() {
+        var idUser = this.user.getIdUser();
+        AsyncService.submit(() -> new UserService().getUserStats(idUser), this::setStatsTexts,
+                ex -> this.setStatsTexts(null));
+    }
+
+    /**
+     * Muestra las estadísticas del usuario.
+     * @param stats Estadísticas a mostrar. Si es {@code null}, indica que no están disponibles.
+     */
+    private void setStatsTexts(UserStats stats) {
+        if (stats == null) {
+            this.template.getlTotalMessages().setText("Mensajes publicados: no disponible");
+            this.template.getLLastPost().setText("Última publicación: no disponible");
+            this.template.getLPostsPerDay().setText("Mensajes por día: no disponible");
+            this.template.getLAverageLength().setText("Longitud promedio: no disponible");
+            return;
+        }
+
+        var lastPost = stats.getLastPost() != null ? stats.getLastPost().format(DATE_TIME_FORMATTER) : "nunca";
+        this.template.getlTotalMessages().setText("Mensajes publicados: " + stats.getMessageCount());
+        this.template.getLLastPost().setText("Última publicación: " + lastPost);
+        this.template.getLPostsPerDay().setText(String.format("Mensajes por día: %.2f", stats.getPostsPerDay()));
+        this.template.getLAverageLength().setText(
+                String.format("Longitud promedio: %.1f caracteres", stats.getAverageLength()));
     }
 
     /**
@@ -40,6 +70,9 @@ public class ViewProfileController {
         this.template.getLFullName().setText("Nombre Completo: " + this.user.getName() + " " + this.user.getLastName());
         this.template.getLEmail().setText("Email: " + this.user.getEmail());
         this.template.getLUsername().setText("Nombre de Usuario: @" + this.user.getUsername());
-        this.template.getlTotalMessages().setText("Mensajes publicados: " + this.userMessages.size());
+        this.template.getlTotalMessages().setText("Mensajes publicados: cargando...");
+        this.template.getLLastPost().setText("Última publicación: cargando...");
+        this.template.getLPostsPerDay().setText("Mensajes por día: cargando...");
+        this.template.getLAverageLength().setText("Longitud promedio: cargando...");
     }
 }
@@ -44,7 +44,7 @@ public class GUIViewMessages extends GUIDialog {
         });
 
         this.cbOrderType = new JComboBox<>(new String[] {
-                BlogConstants.ORDER_BY_NEW_MESSAGES, BlogConstants.ORDER_BY_OLD_MESSAGES
+                BlogConstants.ORDER_BY_NEW_MESSAGES, BlogConstants.ORDER_BY_OLD_MESSAGES, BlogConstants.ORDER_BY_RELEVANCE
         });
     }
 
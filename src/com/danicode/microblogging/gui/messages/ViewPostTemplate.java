@@ -1,6 +1,7 @@
 package com.danicode.microblogging.gui.messages;
 
 import com.danicode.microblogging.gui.model.layouts.IGridBagLayout;
+import com.danicode.microblogging.model.domain.Message;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,6 +13,7 @@ public class ViewPostTemplate extends JPanel {
     private JScrollPane spMessage;
     private IGridBagLayout gbc;
     private final JMenuItem[] menuItems = new JMenuItem[3];
+    private Message message;
 
     public ViewPostTemplate() {
         this.init();
@@ -79,6 +81,10 @@ public class ViewPostTemplate extends JPanel {
         this.design();
     }
 
+    public void setMessage(Message message) { this.message = message; }
+
+    public Message getMessage() { return this.message; }
+
     public JLabel getLFullName() { return this.lFullName; }
 
     public JLabel getLUsername() { return this.lUsername; }
@@ -7,13 +7,13 @@ import javax.swing.*;
 import java.awt.*;
 
 public class GUIViewProfile extends GUIDialog {
-    private JLabel lUserId, lFullName, lEmail, lUsername, lTotalMessages;
+    private JLabel lUserId, lFullName, lEmail, lUsername, lTotalMessages, lLastPost, lPostsPerDay, lAverageLength;
     private JButton bExit;
     private JPanel centerPane, southPane;
     private IGridBagLayout gbc;
 
     public GUIViewProfile(Window owner) {
-        super(owner, 474, 304, "Perfil de Usuario", false, false, new BorderLayout());
+        super(owner, 474, 400, "Perfil de Usuario", false, false, new BorderLayout());
     }
 
     private void createLabels() {
@@ -22,6 +22,9 @@ public class GUIViewProfile extends GUIDialog {
         this.lEmail = new JLabel();
         this.lUsername = new JLabel();
         this.lTotalMessages = new JLabel();
+        this.lLastPost = new JLabel();
+        this.lPostsPerDay = new JLabel();
+        this.lAverageLength = new JLabel();
     }
 
     private void createButtons() {
@@ -57,6 +60,15 @@ public class GUIViewProfile extends GUIDialog {
         this.gbc.addGBC(1, 9, 1, 1, 1.0, 0, GridBagConstraints.HORIZONTAL, this.lTotalMessages);
         this.gbc.addFinalSpaces(WIDTH, 9);
 
+        this.gbc.addGBC(1, 11, 1, 1, 1.0, 0, GridBagConstraints.HORIZONTAL, this.lLastPost);
+        this.gbc.addFinalSpaces(WIDTH, 11);
+
+        this.gbc.addGBC(1, 13, 1, 1, 1.0, 0, GridBagConstraints.HORIZONTAL, this.lPostsPerDay);
+        this.gbc.addFinalSpaces(WIDTH, 13);
+
+        this.gbc.addGBC(1, 15, 1, 1, 1.0, 0, GridBagConstraints.HORIZONTAL, this.lAverageLength);
+        this.gbc.addFinalSpaces(WIDTH, 15);
+
         this.southPane.add(this.bExit);
 
         this.getContentPane().add(this.gbc.pane(), BorderLayout.CENTER);
@@ -86,5 +98,11 @@ public class GUIViewProfile extends GUIDialog {
 
     public JLabel getlTotalMessages() { return this.lTotalMessages; }
 
+    public JLabel getLLastPost() { return this.lLastPost; }
+
+    public JLabel getLPostsPerDay() { return this.lPostsPerDay; }
+
+    public JLabel getLAverageLength() { return this.lAverageLength; }
+
     public JButton getBExit() { return this.bExit; }
 }
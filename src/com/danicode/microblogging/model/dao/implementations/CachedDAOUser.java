@@ -0,0 +1,225 @@
+package com.danicode.microblogging.model.dao.implementations;
+
+import com.danicode.microblogging.model.dao.templates.DAOUser;
+import com.danicode.microblogging.model.domain.User;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorador de {@code DAOUser} que guarda en memoria los usuarios consultados por id y por nombre de usuario.
+ * <p>La caché es compartida por todas las instancias, tiene un tamaño máximo con desalojo LRU y cada entrada expira
+ * después de un tiempo. {@code update} y {@code delete} invalidan la entrada del usuario afectado.</p>
+ * <p>Cada invalidación aumenta una generación global. Una consulta que no encontró al usuario en la caché sólo guarda
+ * lo que leyó de la base de datos si la generación no cambió mientras tanto, así una lectura que empezó antes de una
+ * escritura no puede dejar en la caché la fila anterior. Como la escritura se confirma después, quien la hace debe
+ * volver a llamar a {@link #invalidate(int)} después del commit.</p>
+ * <p>El tamaño y la expiración pueden cambiarse con las propiedades del sistema {@code cache.users.maxSize} y
+ * {@code cache.users.ttlMillis}.</p>
+ */
+public class CachedDAOUser implements DAOUser {
+    private static final int MAX_SIZE = Integer.getInteger("cache.users.maxSize", 1000);
+    private static final long TTL_MILLIS = Long.getLong("cache.users.ttlMillis", 300_000L);
+    private static final Object LOCK = new Object();
+    private static final Map<String, Integer> byUsername = new HashMap<>();
+    private static final Map<Integer, Entry> byId = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+            if (this.size() > MAX_SIZE) {
+                byUsername.remove(key(eldest.getValue().user.getUsername()));
+                return true;
+            }
+            return false;
+        }
+    };
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static long generation = 0;
+    private final DAOUser delegate;
+
+    public CachedDAOUser(DAOUser delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int create(User user) throws Exception {
+        return this.delegate.create(user);
+    }
+
+    @Override
+    public List<User> list() throws Exception {
+        return this.delegate.list();
+    }
+
+    @Override
+    public int update(User user) throws Exception {
+        invalidate(user.getIdUser());
+        var rowsUpdated = this.delegate.update(user);
+        invalidate(user.getIdUser());
+        return rowsUpdated;
+    }
+
+    @Override
+    public int delete(int idUser) throws Exception {
+        invalidate(idUser);
+        var rowsUpdated = this.delegate.delete(idUser);
+        invalidate(idUser);
+        return rowsUpdated;
+    }
+
+    @Override
+    public User findById(int idUser) throws Exception {
+        var seen = generation();
+        var user = get(idUser);
+        if (user == null) {
+            user = put(this.delegate.findById(idUser), seen);
+        }
+        return user;
+    }
+
+    @Override
+    public User findByUsername(String username) throws Exception {
+        User user = null;
+        long seen;
+        synchronized (LOCK) {
+            seen = generation;
+            var idUser = byUsername.get(key(username));
+            if (idUser != null) {
+                user = get(idUser);
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+
+        if (user == null) {
+            user = put(this.delegate.findByUsername(username), seen);
+        }
+        return user;
+    }
+
+    @Override
+    public User findByEmail(String email) throws Exception {
+        var seen = generation();
+        return put(this.delegate.findByEmail(email), seen);
+    }
+
+    /**
+     * Siempre consulta la base de datos, para no aceptar una contraseña que ya cambió. El usuario autenticado se
+     * guarda en la caché.
+     */
+    @Override
+    public User authenticate(String identifier, String secret) throws Exception {
+        var seen = generation();
+        return put(this.delegate.authenticate(identifier, secret), seen);
+    }
+
+    private static User get(int idUser) {
+        synchronized (LOCK) {
+            var entry = byId.get(idUser);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                byId.remove(idUser);
+                byUsername.remove(key(entry.user.getUsername()));
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return copy(entry.user);
+        }
+    }
+
+    private static long generation() {
+        synchronized (LOCK) {
+            return generation;
+        }
+    }
+
+    /**
+     * Guarda al usuario leído de la base de datos, salvo que alguna invalidación haya ocurrido desde {@code seen}.
+     * @param user Usuario leído, puede ser {@code null}.
+     * @param seen Generación obtenida antes de consultar la base de datos.
+     * @return Devuelve el mismo usuario.
+     */
+    private static User put(User user, long seen) {
+        if (user == null) {
+            return null;
+        }
+
+        synchronized (LOCK) {
+            if (generation != seen) {
+                return user;
+            }
+            byId.put(user.getIdUser(), new Entry(copy(user), System.currentTimeMillis() + TTL_MILLIS));
+            byUsername.put(key(user.getUsername()), user.getIdUser());
+        }
+        return user;
+    }
+
+    /**
+     * Elimina de la caché al usuario indicado. Las lecturas que estén en curso no guardarán lo que lean.
+     * @param idUser Id del usuario a invalidar.
+     */
+    public static void invalidate(int idUser) {
+        synchronized (LOCK) {
+            generation ++;
+            var entry = byId.remove(idUser);
+            if (entry != null) {
+                byUsername.remove(key(entry.user.getUsername()));
+            }
+        }
+    }
+
+    /**
+     * Vacía la caché por completo.
+     */
+    public static void invalidateAll() {
+        synchronized (LOCK) {
+            generation ++;
+            byId.clear();
+            byUsername.clear();
+        }
+    }
+
+    /**
+     * @return Devuelve cuántas consultas fueron resueltas por la caché.
+     */
+    public static long getHits() { return hits.get(); }
+
+    /**
+     * @return Devuelve cuántas consultas tuvieron que ir a la base de datos.
+     */
+    public static long getMisses() { return misses.get(); }
+
+    /**
+     * @return Devuelve la proporción de aciertos entre 0 y 1, o 0 si aún no hay consultas.
+     */
+    public static double getHitRate() {
+        var total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private static String key(String username) {
+        return DAOUserImpl.toUsernameKey(username);
+    }
+
+    private static User copy(User user) {
+        return new User(user.getIdUser(), user.getName(), user.getLastName(), user.getEmail(),
+                user.getUsername(), user.getPassword());
+    }
+
+    private static final class Entry {
+        private final User user;
+        private final long expiresAt;
+
+        private Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,64 +1,126 @@
 package com.danicode.microblogging.model.dao.implementations;
 
+import com.danicode.microblogging.constants.BlogConstants;
 import com.danicode.microblogging.model.dao.templates.DAOMessage;
-import com.danicode.microblogging.model.dao.templates.DAOUser;
 import com.danicode.microblogging.model.domain.Message;
+import com.danicode.microblogging.model.domain.User;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static com.danicode.microblogging.services.ConnectionService.*;
 
 public class DAOMessageImpl implements DAOMessage {
     private Connection externConnection;
-    private final DAOUser userDao;
-    private static final String
+    static final String
+        SQL_SELECT_WITH_USER = "SELECT m.message_id, m.date_time, m.message, u.user_id, u.name, u.last_name, " +
+                "u.email, u.username, u.password FROM messages AS m INNER JOIN users AS u ON m.user_id_pk = u.user_id",
         SQL_INSERT = "INSERT INTO messages(user_id_pk, date_time, message) VALUES(?, ?, ?);",
-        SQL_SELECT = "SELECT message_id, user_id_pk, date_time, message FROM messages;",
+        SQL_SELECT = SQL_SELECT_WITH_USER,
         SQL_UPDATE = "UPDATE messages SET message = ? WHERE message_id = ?;",
         SQL_DELETE = "DELETE FROM messages WHERE message_id = ?;",
-        SQL_SELECT_BY_ID = "SELECT user_id_pk, date_time, message FROM messages WHERE message_id = ?;",
-        SQL_SELECT_BY_USERNAME = "SELECT message_id FROM messages m INNER JOIN users AS u " +
-                "ON m.user_id_pk = u.user_id WHERE UPPER(username) = UPPER(?);",
-        SQL_SELECT_BY_MESSAGE = "SELECT message_id FROM messages WHERE message LIKE ?;",
-        SQL_SELECT_BY_DATE_TIME = "SELECT message_id FROM messages WHERE date_time = ?",
-        SQL_DELETE_USER_MESSAGES = "DELETE FROM messages WHERE user_id_pk = ?;";
+        SQL_SELECT_BY_ID = SQL_SELECT_WITH_USER + " WHERE m.message_id = ?;",
+        SQL_SELECT_BY_IDS = SQL_SELECT_WITH_USER + " WHERE m.message_id IN (%s)",
+        SQL_SELECT_BY_USERNAME = SQL_SELECT_WITH_USER + " WHERE u.username_key = ?",
+        SQL_MATCH_MESSAGE = "MATCH(m.message) AGAINST(? IN BOOLEAN MODE)",
+        SQL_LIKE_MESSAGE = "m.message LIKE ?",
+        SQL_SELECT_BY_MESSAGE = SQL_SELECT_WITH_USER + " WHERE " + SQL_LIKE_MESSAGE,
+        SQL_SELECT_BY_TERMS = SQL_SELECT_WITH_USER + " WHERE " + SQL_MATCH_MESSAGE,
+        SQL_SEARCH = SQL_SELECT_BY_TERMS + " ORDER BY " + SQL_MATCH_MESSAGE + " DESC, m.message_id DESC LIMIT ? OFFSET ?;",
+        SQL_SEARCH_LIKE = SQL_SELECT_BY_MESSAGE + " ORDER BY m.message_id DESC LIMIT ? OFFSET ?;",
+        SQL_SELECT_BY_DATE_TIME = SQL_SELECT_WITH_USER + " WHERE m.date_time >= ? AND m.date_time < ?",
+        SQL_COUNT_BY_USER = "SELECT COUNT(*) FROM messages WHERE user_id_pk = ?;",
+        SQL_SELECT_IDS_BY_USER = "SELECT message_id FROM messages WHERE user_id_pk = ? ORDER BY message_id;",
+        SQL_DELETE_USER_MESSAGES = "DELETE FROM messages WHERE user_id_pk = ?;",
+        SQL_ORDER_BY_NEWEST = " ORDER BY m.message_id DESC",
+        SQL_ORDER_BY_OLDEST = " ORDER BY m.message_id ASC";
 
-    public DAOMessageImpl() {
-        this.userDao = new DAOUserImpl();
-    }
+    private static final int FULLTEXT_MIN_TOKEN_SIZE = 3;
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    private static final int[] ID_LIST_SIZES = {1, 10, 100, MAX_IDS_PER_QUERY};
+
+    public DAOMessageImpl() { }
 
     public DAOMessageImpl(Connection externConnection) {
         this.externConnection = externConnection;
-        this.userDao = new DAOUserImpl(externConnection);
     }
 
     @Override
     public int create(Message message) throws Exception {
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_INSERT);
+        var stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS);
         stmt.setInt(1, message.getUser().getIdUser());
-        stmt.setString(2, message.getDateTime());
+        stmt.setTimestamp(2, Timestamp.valueOf(message.getDateTime()));
         stmt.setString(3, message.getMessage());
         var rowsUpdated = stmt.executeUpdate();
-        close(this.externConnection, conn, stmt);
+        var keys = stmt.getGeneratedKeys();
+        if (keys.next()) {
+            message.setIdMessage(keys.getInt(1));
+        }
+        if (rowsUpdated != 0) {
+            new DAOUserStatsImpl(conn).messageCreated(message);
+        }
+        close(this.externConnection, conn, stmt, keys);
+        return rowsUpdated;
+    }
+
+    /**
+     * Inserta varios mensajes con un solo lote JDBC. Con {@code rewriteBatchedStatements=true}, MySQL los recibe
+     * como un {@code INSERT} de varias filas. No hace commit: quien llama decide el tamaño de cada transacción.
+     * <p>Asigna el id generado a cada mensaje y actualiza {@code user_stats} con una fila por autor.</p>
+     */
+    @Override
+    public int createAll(Collection<Message> messages) throws Exception {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        var conn = this.externConnection != null ? this.externConnection : getConnection();
+        var stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS);
+        for (var message : messages) {
+            stmt.setInt(1, message.getUser().getIdUser());
+            stmt.setTimestamp(2, Timestamp.valueOf(message.getDateTime()));
+            stmt.setString(3, message.getMessage());
+            stmt.addBatch();
+        }
+
+        var rowsUpdated = 0;
+        for (var rows : stmt.executeBatch()) {
+            rowsUpdated += rows == Statement.SUCCESS_NO_INFO ? 1 : rows;
+        }
+        var keys = stmt.getGeneratedKeys();
+        var iterator = messages.iterator();
+        while (keys.next() && iterator.hasNext()) {
+            iterator.next().setIdMessage(keys.getInt(1));
+        }
+        new DAOUserStatsImpl(conn).messagesCreated(messages);
+        close(this.externConnection, conn, stmt, keys);
         return rowsUpdated;
     }
 
     @Override
     public List<Message> list() throws Exception {
+        return this.list(BlogConstants.ORDER_BY_OLD_MESSAGES);
+    }
+
+    @Override
+    public List<Message> list(String order) throws Exception {
         List<Message> messages = new ArrayList<>();
         var conn = this.externConnection == null ? getConnection() : this.externConnection;
-        var stmt = conn.prepareStatement(SQL_SELECT);
+        var stmt = prepare(conn, SQL_SELECT + orderBy(order) + ";");
         var rs = stmt.executeQuery();
 
         while (rs.next()) {
-            var user = this.userDao.findById(rs.getInt("user_id_pk"));
-            var message = new Message(
-                    rs.getInt("message_id"), user, rs.getString("date_time"), rs.getString("message")
-            );
-            messages.add(message);
+            messages.add(this.toMessage(rs));
         }
 
         close(this.externConnection, conn, stmt, rs);
@@ -68,7 +130,8 @@ public class DAOMessageImpl implements DAOMessage {
     @Override
     public int update(Message message) throws Exception {
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_UPDATE);
+        new DAOUserStatsImpl(conn).messageEdited(message);
+        var stmt = prepare(conn, SQL_UPDATE);
         stmt.setString(1, message.getMessage());
         stmt.setInt(2, message.getIdMessage());
         var rowsUpdated = stmt.executeUpdate();
@@ -79,7 +142,8 @@ public class DAOMessageImpl implements DAOMessage {
     @Override
     public int delete(int idMessage) throws Exception {
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_DELETE);
+        new DAOUserStatsImpl(conn).messageDeleted(idMessage);
+        var stmt = prepare(conn, SQL_DELETE);
         stmt.setInt(1, idMessage);
         var rowsUpdated = stmt.executeUpdate();
         close(this.externConnection, conn, stmt);
@@ -90,13 +154,12 @@ public class DAOMessageImpl implements DAOMessage {
     public Message findById(int idMessage) throws Exception {
         var message = new Message();
         var conn = this.externConnection == null ? getConnection() : this.externConnection;
-        var stmt = conn.prepareStatement(SQL_SELECT_BY_ID);
+        var stmt = prepare(conn, SQL_SELECT_BY_ID);
         stmt.setInt(1, idMessage);
         var rs = stmt.executeQuery();
 
         if (rs.next())  {
-            var user = this.userDao.findById(rs.getInt("user_id_pk"));
-            message = new Message(idMessage, user, rs.getString("date_time"), rs.getString("message"));
+            message = this.toMessage(rs);
         }
 
         close(this.externConnection, conn, stmt, rs);
@@ -104,16 +167,89 @@ public class DAOMessageImpl implements DAOMessage {
     }
 
     @Override
-    public List<Message> findByUsername(String username) throws Exception {
+    public int forEach(String order, int fetchSize, MessageHandler handler) throws Exception {
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_SELECT + orderBy(order) + ";");
+        stmt.setFetchSize(fetchSize);
+        stmt.setQueryTimeout(0);
+        var rows = 0;
+        try (var rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                handler.handle(this.toMessage(rs));
+                rows ++;
+            }
+        } finally {
+            stmt.setFetchSize(0);
+            close(this.externConnection, conn, stmt);
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Message> findByIds(int[] ids, String order) throws Exception {
         List<Message> messages = new ArrayList<>();
+        if (ids.length == 0) {
+            return messages;
+        }
+
+        var conn = this.externConnection != null ? this.externConnection : getConnection();
+        for (int from = 0; from < ids.length; from += MAX_IDS_PER_QUERY) {
+            var size = Math.min(MAX_IDS_PER_QUERY, ids.length - from);
+            var padded = paddedSize(size);
+            var placeholders = String.join(", ", Collections.nCopies(padded, "?"));
+            try (var stmt = prepare(conn, String.format(SQL_SELECT_BY_IDS, placeholders) + orderBy(order) + ";")) {
+                for (int i = 0; i < padded; i ++) {
+                    stmt.setInt(i + 1, ids[from + Math.min(i, size - 1)]);
+                }
+                try (var rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        messages.add(this.toMessage(rs));
+                    }
+                }
+            }
+        }
+
+        close(this.externConnection, conn);
+        return messages;
+    }
+
+    @Override
+    public List<Message> findByUsername(String username, String order) throws Exception {
+        var conn = this.externConnection != null ? this.externConnection : getConnection();
+        return this.findByString(conn, SQL_SELECT_BY_USERNAME + orderBy(order) + ";",
+                DAOUserImpl.toUsernameKey(username));
+    }
+
+    @Override
+    public List<Message> findByMessage(String message, String order) throws Exception {
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_SELECT_BY_USERNAME);
-        stmt.setString(1, username);
+        var terms = toFullTextQuery(message);
+        if (terms.isEmpty()) {
+            return this.findByString(conn, SQL_SELECT_BY_MESSAGE + orderBy(order) + ";", "%" + message + "%");
+        }
+        return this.findByString(conn, SQL_SELECT_BY_TERMS + orderBy(order) + ";", terms);
+    }
+
+    @Override
+    public List<Message> search(String text, int offset, int limit) throws Exception {
+        List<Message> messages = new ArrayList<>();
+        var conn = this.externConnection != null ? this.externConnection : getConnection();
+        var terms = toFullTextQuery(text);
+        var stmt = prepare(conn, terms.isEmpty() ? SQL_SEARCH_LIKE : SQL_SEARCH);
+        var index = 1;
+
+        if (terms.isEmpty()) {
+            stmt.setString(index ++, "%" + text + "%");
+        } else {
+            stmt.setString(index ++, terms);
+            stmt.setString(index ++, terms);
+        }
+        stmt.setInt(index ++, limit);
+        stmt.setInt(index, offset);
         var rs = stmt.executeQuery();
 
         while (rs.next()) {
-            var message = this.findById(rs.getInt("message_id"));
-            messages.add(message);
+            messages.add(this.toMessage(rs));
         }
 
         close(this.externConnection, conn, stmt, rs);
@@ -121,15 +257,16 @@ public class DAOMessageImpl implements DAOMessage {
     }
 
     @Override
-    public List<Message> findByMessage(String message) throws Exception {
+    public List<Message> findByDateTime(LocalDateTime from, LocalDateTime to, String order) throws Exception {
         List<Message> messages = new ArrayList<>();
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_SELECT_BY_MESSAGE);
-        stmt.setString(1, "%" + message + "%");
+        var stmt = prepare(conn, SQL_SELECT_BY_DATE_TIME + orderBy(order) + ";");
+        stmt.setTimestamp(1, Timestamp.valueOf(from));
+        stmt.setTimestamp(2, Timestamp.valueOf(to));
         var rs = stmt.executeQuery();
 
         while (rs.next()) {
-            messages.add(this.findById(rs.getInt("message_id")));
+            messages.add(this.toMessage(rs));
         }
 
         close(this.externConnection, conn, stmt, rs);
@@ -137,28 +274,150 @@ public class DAOMessageImpl implements DAOMessage {
     }
 
     @Override
-    public Message findByDateTime(String dateTime) throws Exception {
-        Message message = null;
+    public List<Message> page(int cursor, int limit, int filter, String value, String order) throws Exception {
+        List<Message> messages = new ArrayList<>();
+        var newestFirst = !BlogConstants.ORDER_BY_OLD_MESSAGES.equals(order);
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_SELECT_BY_DATE_TIME);
-        stmt.setString(1, dateTime);
+        var terms = filter == BlogConstants.LIST_BY_MESSAGE ? toFullTextQuery(value) : "";
+        var stmt = prepare(conn, this.pageQuery(filter, newestFirst, !terms.isEmpty()));
+        var index = 1;
+
+        stmt.setInt(index ++, cursor > 0 ? cursor : newestFirst ? Integer.MAX_VALUE : 0);
+        if (filter == BlogConstants.LIST_USER_MESSAGES) {
+            stmt.setString(index ++, DAOUserImpl.toUsernameKey(value));
+        } else if (filter == BlogConstants.LIST_BY_MESSAGE) {
+            stmt.setString(index ++, terms.isEmpty() ? "%" + value + "%" : terms);
+        }
+        stmt.setInt(index, limit);
+        var rs = stmt.executeQuery();
+
+        while (rs.next()) {
+            messages.add(this.toMessage(rs));
+        }
+
+        close(this.externConnection, conn, stmt, rs);
+        return messages;
+    }
+
+    @Override
+    public int countByUser(int idUser) throws Exception {
+        var count = 0;
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_COUNT_BY_USER);
+        stmt.setInt(1, idUser);
         var rs = stmt.executeQuery();
 
         if (rs.next()) {
-            message = this.findById(rs.getInt("message_id"));
+            count = rs.getInt(1);
         }
+        close(this.externConnection, conn, stmt, rs);
+        return count;
+    }
+
+    @Override
+    public int[] findIdsByUser(int idUser) throws Exception {
+        var ids = new int[16];
+        var size = 0;
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_SELECT_IDS_BY_USER);
+        stmt.setInt(1, idUser);
+        var rs = stmt.executeQuery();
 
+        while (rs.next()) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size ++] = rs.getInt(1);
+        }
         close(this.externConnection, conn, stmt, rs);
-        return message;
+        return Arrays.copyOf(ids, size);
     }
 
     @Override
     public int deleteUserMessages(int idUser) throws Exception {
         var conn = this.externConnection == null ? getConnection() : this.externConnection;
-        var stmt = conn.prepareStatement(SQL_DELETE_USER_MESSAGES);
+        new DAOUserStatsImpl(conn).userMessagesDeleted(idUser);
+        var stmt = prepare(conn, SQL_DELETE_USER_MESSAGES);
         stmt.setInt(1, idUser);
         var rowsUpdated = stmt.executeUpdate();
         close(this.externConnection, conn, stmt);
         return rowsUpdated;
     }
+
+    String pageQuery(int filter, boolean newestFirst, boolean fullText) {
+        var query = new StringBuilder(SQL_SELECT_WITH_USER);
+        query.append(newestFirst ? " WHERE m.message_id < ?" : " WHERE m.message_id > ?");
+
+        if (filter == BlogConstants.LIST_USER_MESSAGES) {
+            query.append(" AND u.username_key = ?");
+        } else if (filter == BlogConstants.LIST_BY_MESSAGE) {
+            query.append(" AND ").append(fullText ? SQL_MATCH_MESSAGE : SQL_LIKE_MESSAGE);
+        }
+
+        query.append(newestFirst ? SQL_ORDER_BY_NEWEST : SQL_ORDER_BY_OLDEST);
+        return query.append(" LIMIT ?;").toString();
+    }
+
+    /**
+     * Convierte el texto buscado en una consulta FULLTEXT en modo booleano: cada palabra es obligatoria y se busca
+     * como prefijo. Se descartan los operadores del modo booleano escritos por el usuario.
+     * @return Devuelve la consulta, o una cadena vacía si ninguna palabra alcanza el tamaño mínimo indexado o si el
+     * motor no tiene índices FULLTEXT, en cuyo caso se debe usar {@code LIKE}.
+     * <p>Se debe llamar después de obtener la conexión: el motor se conoce al crear el pool.</p>
+     */
+    private static String toFullTextQuery(String text) {
+        if (text == null || !getBackend().supportsFullText()) {
+            return "";
+        }
+
+        var terms = new StringBuilder();
+        for (var word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= FULLTEXT_MIN_TOKEN_SIZE) {
+                terms.append(terms.length() == 0 ? "" : " ").append('+').append(word).append('*');
+            }
+        }
+        return terms.toString();
+    }
+
+    private static String orderBy(String order) {
+        return BlogConstants.ORDER_BY_OLD_MESSAGES.equals(order) ? SQL_ORDER_BY_OLDEST : SQL_ORDER_BY_NEWEST;
+    }
+
+    private List<Message> findByString(Connection conn, String query, String value) throws Exception {
+        List<Message> messages = new ArrayList<>();
+        var stmt = prepare(conn, query);
+        stmt.setString(1, value);
+        var rs = stmt.executeQuery();
+
+        while (rs.next()) {
+            messages.add(this.toMessage(rs));
+        }
+
+        close(this.externConnection, conn, stmt, rs);
+        return messages;
+    }
+
+    /**
+     * Redondea la cantidad de ids de un {@code IN (...)} hacia arriba a uno de unos pocos tamaños fijos, así cada
+     * orden sólo genera cuatro sentencias distintas en el pool de sentencias y en el servidor. Los lugares sobrantes
+     * se llenan repitiendo el último id, lo que no cambia el resultado.
+     */
+    private static int paddedSize(int size) {
+        for (var candidate : ID_LIST_SIZES) {
+            if (size <= candidate) {
+                return candidate;
+            }
+        }
+        return size;
+    }
+
+    private Message toMessage(ResultSet rs) throws SQLException {
+        var user = new User(
+                rs.getInt("user_id"), rs.getString("name"), rs.getString("last_name"),
+                rs.getString("email"), rs.getString("username"), rs.getString("password")
+        );
+        return new Message(
+                rs.getInt("message_id"), user, rs.getTimestamp("date_time").toLocalDateTime(), rs.getString("message")
+        );
+    }
 }
@@ -7,19 +7,21 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import static com.danicode.microblogging.services.ConnectionService.*;
 
 public class DAOUserImpl implements DAOUser {
     private Connection externConnection = null;
-    private static final String
-        SQL_INSERT = "INSERT INTO users(name, last_name, email, username, password) VALUES(?, ?, ?, ?, ?);",
+    static final String
+        SQL_INSERT = "INSERT INTO users(name, last_name, email, username, username_key, password) VALUES(?, ?, ?, ?, ?, ?);",
         SQL_SELECT = "SELECT * FROM users;",
         SQL_UPDATE = "UPDATE users SET name=?, last_name=?, email=?, password=? WHERE user_id=?;",
         SQL_DELETE = "DELETE FROM users WHERE user_id=?;",
         SQL_SELECT_BY_ID = "SELECT name, last_name, email, username, password FROM users WHERE user_id=?;",
-        SQL_SELECT_BY_USERNAME = "SELECT * FROM users WHERE UPPER(username)=UPPER(?);",
-        SQL_SELECT_BY_EMAIL = "SELECT * FROM users WHERE email=?;";
+        SQL_SELECT_BY_USERNAME = "SELECT * FROM users WHERE username_key=?;",
+        SQL_SELECT_BY_EMAIL = "SELECT * FROM users WHERE email=?;",
+        SQL_AUTHENTICATE = "SELECT * FROM users WHERE email=? OR username_key=?;";
 
     public DAOUserImpl() { }
 
@@ -30,12 +32,13 @@ public class DAOUserImpl implements DAOUser {
     @Override
     public int create(User user) throws Exception {
         Connection conn = this.externConnection == null ? getConnection() : this.externConnection;
-        PreparedStatement stmt = conn.prepareStatement(SQL_INSERT);
+        PreparedStatement stmt = prepare(conn, SQL_INSERT);
         stmt.setString(1, user.getName());
         stmt.setString(2, user.getLastName());
-        stmt.setString(3, user.getEmail().toLowerCase());
+        stmt.setString(3, toEmailKey(user.getEmail()));
         stmt.setString(4, user.getUsername());
-        stmt.setString(5, user.getPassword());
+        stmt.setString(5, toUsernameKey(user.getUsername()));
+        stmt.setString(6, user.getPassword());
 
         var rowsUpdated = stmt.executeUpdate();
         close(this.externConnection, conn, stmt);
@@ -46,7 +49,7 @@ public class DAOUserImpl implements DAOUser {
     public List<User> list() throws Exception {
         List<User> users = new ArrayList<>();
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_SELECT);
+        var stmt = prepare(conn, SQL_SELECT);
         var rs = stmt.executeQuery();
 
         while (rs.next()) {
@@ -64,10 +67,10 @@ public class DAOUserImpl implements DAOUser {
     @Override
     public int update(User user) throws Exception {
         var conn = this.externConnection == null ? getConnection() : this.externConnection;
-        var stmt = conn.prepareStatement(SQL_UPDATE);
+        var stmt = prepare(conn, SQL_UPDATE);
         stmt.setString(1, user.getName());
         stmt.setString(2, user.getLastName());
-        stmt.setString(3, user.getEmail());
+        stmt.setString(3, toEmailKey(user.getEmail()));
         stmt.setString(4, user.getPassword());
         stmt.setInt(5, user.getIdUser());
 
@@ -79,7 +82,7 @@ public class DAOUserImpl implements DAOUser {
     @Override
     public int delete(int idUser) throws Exception {
         var conn = this.externConnection != null ? this.externConnection : getConnection();
-        var stmt = conn.prepareStatement(SQL_DELETE);
+        var stmt = prepare(conn, SQL_DELETE);
         stmt.setInt(1, idUser);
         var rowsUpdated = stmt.executeUpdate();
         close(this.externConnection, conn, stmt);
@@ -90,7 +93,7 @@ public class DAOUserImpl implements DAOUser {
     public User findById(int idUser) throws Exception {
         User user = null;
         var conn = this.externConnection == null ? getConnection() : this.externConnection;
-        var stmt = conn.prepareStatement(SQL_SELECT_BY_ID);
+        var stmt = prepare(conn, SQL_SELECT_BY_ID);
         stmt.setInt(1, idUser);
         var rs = stmt.executeQuery();
 
@@ -106,18 +109,66 @@ public class DAOUserImpl implements DAOUser {
 
     @Override
     public User findByUsername(String username) throws Exception {
-        return this.findByString(SQL_SELECT_BY_USERNAME, username);
+        return this.findByString(SQL_SELECT_BY_USERNAME, toUsernameKey(username));
     }
 
     @Override
     public User findByEmail(String email) throws Exception {
-        return this.findByString(SQL_SELECT_BY_EMAIL, email);
+        return this.findByString(SQL_SELECT_BY_EMAIL, toEmailKey(email));
+    }
+
+    @Override
+    public User authenticate(String identifier, String secret) throws Exception {
+        User byEmail = null;
+        User byUsername = null;
+        var email = toEmailKey(identifier);
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_AUTHENTICATE);
+        stmt.setString(1, email);
+        stmt.setString(2, toUsernameKey(identifier));
+        var rs = stmt.executeQuery();
+
+        while (rs.next()) {
+            var user = new User(
+                    rs.getInt("user_id"), rs.getString("name"), rs.getString("last_name"),
+                    rs.getString("email"), rs.getString("username"), rs.getString("password")
+            );
+            if (!user.getPassword().equals(secret)) {
+                continue;
+            }
+            if (user.getEmail().equalsIgnoreCase(email)) {
+                byEmail = user;
+            } else {
+                byUsername = user;
+            }
+        }
+        close(this.externConnection, conn, stmt, rs);
+        return byEmail != null ? byEmail : byUsername;
+    }
+
+    /**
+     * Normaliza el nombre de usuario para buscarlo por la columna {@code username_key}, que tiene un índice único.
+     * @param username Nombre de usuario tal como lo escribió el usuario.
+     * @return Devuelve el nombre de usuario en minúsculas.
+     */
+    static String toUsernameKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normaliza el email para guardarlo y buscarlo siempre igual, así el índice único {@code ux_users_email} y el login
+     * no dependen de la intercalación de la base de datos.
+     * @param email Email tal como lo escribió el usuario.
+     * @return Devuelve el email en minúsculas.
+     */
+    static String toEmailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
     }
 
     private User findByString(String query, String value) throws Exception {
         User user = null;
         var conn = this.externConnection == null ? getConnection() : this.externConnection;
-        var stmt = conn.prepareStatement(query);
+        var stmt = prepare(conn, query);
         stmt.setString(1, value);
         var rs = stmt.executeQuery();
 
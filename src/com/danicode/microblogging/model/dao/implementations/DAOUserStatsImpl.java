@@ -0,0 +1,165 @@
+package com.danicode.microblogging.model.dao.implementations;
+
+import com.danicode.microblogging.model.dao.templates.DAOUserStats;
+import com.danicode.microblogging.model.domain.Message;
+import com.danicode.microblogging.model.domain.UserStats;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.danicode.microblogging.services.ConnectionService.*;
+
+/**
+ * Mantiene la tabla {@code user_stats}, con una fila por usuario que se actualiza en cada escritura de mensajes.
+ * <p>{@code messageEdited} y {@code messageDeleted} deben llamarse antes de modificar el mensaje, porque leen su
+ * contenido anterior. {@code DAOMessageImpl} los llama con su misma conexión, así quedan en la misma transacción.</p>
+ * <p>Al borrar un mensaje, la primera y la última publicación son la fecha mínima y máxima de los mensajes que le
+ * quedan al usuario. Se leen en orden de {@code date_time} con {@code LIMIT 1} en lugar de {@code MIN}/{@code MAX}:
+ * con la condición que excluye al mensaje borrado, {@code MIN} recorre todos los mensajes del usuario, mientras que
+ * el índice {@code (user_id_pk, date_time)} entrega el primero y el último directamente.</p>
+ */
+public class DAOUserStatsImpl implements DAOUserStats {
+    private Connection externConnection = null;
+    static final String
+        SQL_SELECT_BY_ID = "SELECT message_count, total_length, first_post, last_post FROM user_stats WHERE user_id=?;",
+        SQL_MESSAGE_CREATED = "INSERT INTO user_stats(user_id, message_count, total_length, first_post, last_post) " +
+                "VALUES(?, 1, ?, ?, ?) ON DUPLICATE KEY UPDATE message_count = message_count + 1, " +
+                "total_length = total_length + VALUES(total_length), " +
+                "first_post = COALESCE(first_post, VALUES(first_post)), last_post = VALUES(last_post);",
+        SQL_MESSAGES_CREATED = "INSERT INTO user_stats(user_id, message_count, total_length, first_post, last_post) " +
+                "VALUES(?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE message_count = message_count + VALUES(message_count), " +
+                "total_length = total_length + VALUES(total_length), " +
+                "first_post = LEAST(COALESCE(first_post, VALUES(first_post)), VALUES(first_post)), " +
+                "last_post = GREATEST(COALESCE(last_post, VALUES(last_post)), VALUES(last_post));",
+        SQL_MESSAGE_EDITED = "UPDATE user_stats SET total_length = total_length + ? - " +
+                "(SELECT CHAR_LENGTH(message) FROM messages WHERE message_id = ?) " +
+                "WHERE user_id = (SELECT user_id_pk FROM messages WHERE message_id = ?);",
+        SQL_MESSAGE_DELETED = "UPDATE user_stats SET message_count = message_count - 1, total_length = total_length - " +
+                "(SELECT CHAR_LENGTH(message) FROM messages WHERE message_id = ?), " +
+                "first_post = (SELECT date_time FROM messages WHERE user_id_pk = user_stats.user_id " +
+                "AND message_id <> ? ORDER BY date_time ASC LIMIT 1), " +
+                "last_post = (SELECT date_time FROM messages WHERE user_id_pk = user_stats.user_id " +
+                "AND message_id <> ? ORDER BY date_time DESC LIMIT 1) " +
+                "WHERE user_id = (SELECT user_id_pk FROM messages WHERE message_id = ?);",
+        SQL_USER_MESSAGES_DELETED = "UPDATE user_stats SET message_count = 0, total_length = 0, first_post = NULL, " +
+                "last_post = NULL WHERE user_id = ?;";
+
+    public DAOUserStatsImpl() { }
+
+    public DAOUserStatsImpl(Connection externConnection) {
+        this.externConnection = externConnection;
+    }
+
+    @Override
+    public UserStats findById(int idUser) throws Exception {
+        var stats = new UserStats(idUser);
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_SELECT_BY_ID);
+        stmt.setInt(1, idUser);
+        var rs = stmt.executeQuery();
+
+        if (rs.next()) {
+            stats.setMessageCount(rs.getInt("message_count"));
+            stats.setTotalLength(rs.getLong("total_length"));
+            var firstPost = rs.getTimestamp("first_post");
+            var lastPost = rs.getTimestamp("last_post");
+            stats.setFirstPost(firstPost != null ? firstPost.toLocalDateTime() : null);
+            stats.setLastPost(lastPost != null ? lastPost.toLocalDateTime() : null);
+        }
+        close(this.externConnection, conn, stmt, rs);
+        return stats;
+    }
+
+    @Override
+    public int messageCreated(Message message) throws Exception {
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_MESSAGE_CREATED);
+        var dateTime = Timestamp.valueOf(message.getDateTime());
+        stmt.setInt(1, message.getUser().getIdUser());
+        stmt.setLong(2, length(message.getMessage()));
+        stmt.setTimestamp(3, dateTime);
+        stmt.setTimestamp(4, dateTime);
+        var rowsUpdated = stmt.executeUpdate();
+        close(this.externConnection, conn, stmt);
+        return rowsUpdated;
+    }
+
+    /**
+     * Suma varios mensajes nuevos a las estadísticas, con una sola fila por autor en lugar de una por mensaje.
+     * <p>Admite mensajes más viejos que los ya publicados, por ejemplo al importar un archivo.</p>
+     */
+    @Override
+    public int messagesCreated(Collection<Message> messages) throws Exception {
+        Map<Integer, UserStats> byUser = new HashMap<>();
+        for (var message : messages) {
+            var stats = byUser.computeIfAbsent(message.getUser().getIdUser(), UserStats::new);
+            var dateTime = message.getDateTime();
+            stats.setMessageCount(stats.getMessageCount() + 1);
+            stats.setTotalLength(stats.getTotalLength() + length(message.getMessage()));
+            if (stats.getFirstPost() == null || dateTime.isBefore(stats.getFirstPost())) {
+                stats.setFirstPost(dateTime);
+            }
+            if (stats.getLastPost() == null || dateTime.isAfter(stats.getLastPost())) {
+                stats.setLastPost(dateTime);
+            }
+        }
+        if (byUser.isEmpty()) {
+            return 0;
+        }
+
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_MESSAGES_CREATED);
+        for (var stats : byUser.values()) {
+            stmt.setInt(1, stats.getIdUser());
+            stmt.setInt(2, stats.getMessageCount());
+            stmt.setLong(3, stats.getTotalLength());
+            stmt.setTimestamp(4, Timestamp.valueOf(stats.getFirstPost()));
+            stmt.setTimestamp(5, Timestamp.valueOf(stats.getLastPost()));
+            stmt.addBatch();
+        }
+        var rowsUpdated = stmt.executeBatch().length;
+        close(this.externConnection, conn, stmt);
+        return rowsUpdated;
+    }
+
+    @Override
+    public int messageEdited(Message message) throws Exception {
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_MESSAGE_EDITED);
+        stmt.setLong(1, length(message.getMessage()));
+        stmt.setInt(2, message.getIdMessage());
+        stmt.setInt(3, message.getIdMessage());
+        var rowsUpdated = stmt.executeUpdate();
+        close(this.externConnection, conn, stmt);
+        return rowsUpdated;
+    }
+
+    @Override
+    public int messageDeleted(int idMessage) throws Exception {
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_MESSAGE_DELETED);
+        for (var i = 1; i <= 4; i ++) {
+            stmt.setInt(i, idMessage);
+        }
+        var rowsUpdated = stmt.executeUpdate();
+        close(this.externConnection, conn, stmt);
+        return rowsUpdated;
+    }
+
+    @Override
+    public int userMessagesDeleted(int idUser) throws Exception {
+        var conn = this.externConnection == null ? getConnection() : this.externConnection;
+        var stmt = prepare(conn, SQL_USER_MESSAGES_DELETED);
+        stmt.setInt(1, idUser);
+        var rowsUpdated = stmt.executeUpdate();
+        close(this.externConnection, conn, stmt);
+        return rowsUpdated;
+    }
+
+    private static long length(String message) {
+        return message.codePointCount(0, message.length());
+    }
+}
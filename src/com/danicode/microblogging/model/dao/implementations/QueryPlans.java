@@ -0,0 +1,94 @@
+package com.danicode.microblogging.model.dao.implementations;
+
+import com.danicode.microblogging.constants.BlogConstants;
+import com.danicode.microblogging.services.StorageBackend;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Revisa con {@code EXPLAIN} que las consultas más usadas de los DAOs puedan resolverse con un índice.
+ * <p>Se considera un problema cuando MySQL recorre una tabla completa ({@code type = ALL}) sin tener ningún índice
+ * posible. Con pocas filas MySQL puede preferir recorrer la tabla aunque exista un índice, por eso no basta con
+ * {@code type = ALL}.</p>
+ * <p>A partir de {@code MIN_SCAN_ROWS} filas estimadas, cualquier recorrido completo de una tabla o de un índice
+ * ({@code type = ALL} o {@code index}) es un problema aunque haya índices posibles: suelen ser los de la condición del
+ * join, que no sirven para el filtro. Por eso la revisión encuentra más problemas con una base de datos con datos
+ * reales o de prueba, como la de los benchmarks.</p>
+ */
+public final class QueryPlans {
+    private static final long MIN_SCAN_ROWS = 1000;
+
+    private QueryPlans() { }
+
+    /**
+     * @return Devuelve las consultas a revisar, con valores de ejemplo para sus parámetros.
+     */
+    private static Map<String, Object[]> queries() {
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        var messages = new DAOMessageImpl();
+        Map<String, Object[]> queries = new LinkedHashMap<>();
+
+        queries.put(DAOUserImpl.SQL_SELECT_BY_ID, new Object[] {1});
+        queries.put(DAOUserImpl.SQL_SELECT_BY_USERNAME, new Object[] {"usuario"});
+        queries.put(DAOUserImpl.SQL_SELECT_BY_EMAIL, new Object[] {"usuario@correo.com"});
+        queries.put(DAOUserImpl.SQL_AUTHENTICATE, new Object[] {"usuario", "usuario"});
+
+        queries.put(DAOMessageImpl.SQL_SELECT_BY_ID, new Object[] {1});
+        queries.put(DAOMessageImpl.SQL_SELECT_BY_USERNAME, new Object[] {"usuario"});
+        queries.put(DAOMessageImpl.SQL_SELECT_BY_TERMS, new Object[] {"+hola*"});
+        queries.put(DAOMessageImpl.SQL_SELECT_BY_DATE_TIME, new Object[] {now, now});
+        queries.put(DAOMessageImpl.SQL_COUNT_BY_USER, new Object[] {1});
+        queries.put(DAOMessageImpl.SQL_DELETE_USER_MESSAGES, new Object[] {1});
+        queries.put(messages.pageQuery(BlogConstants.LIST_MESSAGES, true, false), new Object[] {1000, 10});
+        queries.put(messages.pageQuery(BlogConstants.LIST_USER_MESSAGES, true, false),
+                new Object[] {1000, "usuario", 10});
+        queries.put(messages.pageQuery(BlogConstants.LIST_BY_MESSAGE, true, true), new Object[] {1000, "+hola*", 10});
+
+        queries.put(DAOUserStatsImpl.SQL_SELECT_BY_ID, new Object[] {1});
+        queries.put(DAOUserStatsImpl.SQL_MESSAGE_DELETED, new Object[] {1, 1, 1, 1});
+        return queries;
+    }
+
+    /**
+     * Ejecuta {@code EXPLAIN} sobre cada consulta.
+     * @param conn Conexión a la base de datos, con el esquema al día.
+     * @param backend Motor de base de datos. Sólo se revisa MySQL, los demás motores devuelven una lista vacía.
+     * @return Devuelve una línea por cada tabla que se recorre completa, indicando la consulta.
+     * @throws SQLException Si alguna consulta no es válida para el esquema actual.
+     */
+    public static List<String> check(Connection conn, StorageBackend backend) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        if (backend != StorageBackend.MYSQL) {
+            return problems;
+        }
+
+        for (var query : queries().entrySet()) {
+            try (var stmt = conn.prepareStatement("EXPLAIN " + query.getKey())) {
+                var params = query.getValue();
+                for (var i = 0; i < params.length; i ++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
+                try (var rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        var table = rs.getString("table");
+                        var type = rs.getString("type");
+                        var scan = "ALL".equals(type) || "index".equals(type);
+                        if (scan && table != null && !table.startsWith("<") &&
+                                (rs.getString("possible_keys") == null || rs.getLong("rows") >= MIN_SCAN_ROWS)) {
+                            problems.add("Recorre la tabla " + table + " (" + rs.getLong("rows") + " filas): " +
+                                    query.getKey());
+                        }
+                    }
+                }
+            }
+        }
+        return problems;
+    }
+}
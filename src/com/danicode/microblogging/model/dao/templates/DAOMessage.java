@@ -2,15 +2,38 @@ package com.danicode.microblogging.model.dao.templates;
 
 import com.danicode.microblogging.model.domain.Message;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface DAOMessage extends CRUD<Message> {
 
-    List<Message> findByUsername(String username) throws Exception;
+    @FunctionalInterface
+    interface MessageHandler {
+        void handle(Message message) throws Exception;
+    }
 
-    List<Message> findByMessage(String message) throws Exception;
+    int createAll(Collection<Message> messages) throws Exception;
 
-    Message findByDateTime(String dateTime) throws Exception;
+    List<Message> list(String order) throws Exception;
+
+    int forEach(String order, int fetchSize, MessageHandler handler) throws Exception;
+
+    List<Message> findByIds(int[] ids, String order) throws Exception;
+
+    List<Message> findByUsername(String username, String order) throws Exception;
+
+    List<Message> findByMessage(String message, String order) throws Exception;
+
+    List<Message> search(String text, int offset, int limit) throws Exception;
+
+    List<Message> findByDateTime(LocalDateTime from, LocalDateTime to, String order) throws Exception;
+
+    List<Message> page(int cursor, int limit, int filter, String value, String order) throws Exception;
+
+    int countByUser(int idUser) throws Exception;
+
+    int[] findIdsByUser(int idUser) throws Exception;
 
     int deleteUserMessages(int idUser) throws Exception;
 }
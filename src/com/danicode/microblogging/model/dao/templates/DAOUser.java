@@ -7,4 +7,6 @@ public interface DAOUser extends CRUD<User> {
     User findByUsername(String username) throws Exception;
 
     User findByEmail(String email) throws Exception;
+
+    User authenticate(String identifier, String secret) throws Exception;
 }
@@ -0,0 +1,21 @@
+package com.danicode.microblogging.model.dao.templates;
+
+import com.danicode.microblogging.model.domain.Message;
+import com.danicode.microblogging.model.domain.UserStats;
+
+import java.util.Collection;
+
+public interface DAOUserStats {
+
+    UserStats findById(int idUser) throws Exception;
+
+    int messageCreated(Message message) throws Exception;
+
+    int messagesCreated(Collection<Message> messages) throws Exception;
+
+    int messageEdited(Message message) throws Exception;
+
+    int messageDeleted(int idMessage) throws Exception;
+
+    int userMessagesDeleted(int idUser) throws Exception;
+}
@@ -1,13 +1,13 @@
 package com.danicode.microblogging.model.domain;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 
 public class Message {
-    private final static String DATE_TIME_FORMAT = "EEE, dd-MM-yyyy hh:mm:ss a";
     private int idMessage;
     private User user;
-    private String dateTime, message;
+    private LocalDateTime dateTime;
+    private String message;
 
     public Message() { }
 
@@ -22,7 +22,7 @@ public class Message {
         this.message = message;
     }
 
-    public Message(int idMessage, User user, String dateTime, String message) {
+    public Message(int idMessage, User user, LocalDateTime dateTime, String message) {
         this.idMessage = idMessage;
         this.user = user;
         this.dateTime = dateTime;
@@ -33,12 +33,10 @@ public class Message {
 
     public void setUser(User user) { this.user = user; }
 
-    public void setDateTime(String dateTime) { this.dateTime = dateTime; }
+    public void setDateTime(LocalDateTime dateTime) { this.dateTime = dateTime; }
 
     public void setDateTime() {
-        LocalDateTime dateTime = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_TIME_FORMAT);
-        this.dateTime = dateTime.format(formatter);
+        this.dateTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
     }
 
     public void setMessage(String message) { this.message = message; }
@@ -47,7 +45,7 @@ public class Message {
 
     public User getUser() { return this.user; }
 
-    public String getDateTime() { return this.dateTime; }
+    public LocalDateTime getDateTime() { return this.dateTime; }
 
     public String getMessage() { return this.message; }
 
@@ -56,7 +54,7 @@ public class Message {
         return "Message{" +
                 "idMessage=" + this.idMessage +
                 ", user=" + this.user +
-                ", dateTime='" + this.dateTime + '\'' +
+                ", dateTime=" + this.dateTime +
                 ", message='" + this.message + '\'' +
                 '}';
     }
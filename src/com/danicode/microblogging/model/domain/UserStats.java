@@ -0,0 +1,68 @@
+package com.danicode.microblogging.model.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class UserStats {
+    private int idUser;
+    private int messageCount;
+    private long totalLength;
+    private LocalDateTime firstPost, lastPost;
+
+    public UserStats() { }
+
+    public UserStats(int idUser) {
+        this.idUser = idUser;
+    }
+
+    public UserStats(int idUser, int messageCount, long totalLength, LocalDateTime firstPost, LocalDateTime lastPost) {
+        this(idUser);
+        this.messageCount = messageCount;
+        this.totalLength = totalLength;
+        this.firstPost = firstPost;
+        this.lastPost = lastPost;
+    }
+
+    public void setIdUser(int idUser) { this.idUser = idUser; }
+
+    public void setMessageCount(int messageCount) { this.messageCount = messageCount; }
+
+    public void setTotalLength(long totalLength) { this.totalLength = totalLength; }
+
+    public void setFirstPost(LocalDateTime firstPost) { this.firstPost = firstPost; }
+
+    public void setLastPost(LocalDateTime lastPost) { this.lastPost = lastPost; }
+
+    public int getIdUser() { return this.idUser; }
+
+    public int getMessageCount() { return this.messageCount; }
+
+    public long getTotalLength() { return this.totalLength; }
+
+    public LocalDateTime getFirstPost() { return this.firstPost; }
+
+    public LocalDateTime getLastPost() { return this.lastPost; }
+
+    public double getAverageLength() {
+        return this.messageCount == 0 ? 0 : (double) this.totalLength / this.messageCount;
+    }
+
+    public double getPostsPerDay() {
+        if (this.messageCount == 0 || this.firstPost == null) {
+            return 0;
+        }
+        var days = Math.max(1, Duration.between(this.firstPost, LocalDateTime.now()).toDays() + 1);
+        return (double) this.messageCount / days;
+    }
+
+    @Override
+    public String toString() {
+        return "UserStats{" +
+                "idUser=" + this.idUser +
+                ", messageCount=" + this.messageCount +
+                ", totalLength=" + this.totalLength +
+                ", firstPost=" + this.firstPost +
+                ", lastPost=" + this.lastPost +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.danicode.microblogging.services;
+
+import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta las operaciones de {@code MessageService} y {@code UserService} fuera del hilo de eventos de Swing (EDT).
+ * <p>Por defecto cada tarea se ejecuta en su propio hilo virtual, así muchas consultas pueden quedar bloqueadas en JDBC
+ * sin ocupar un hilo de plataforma cada una. Con la propiedad del sistema {@code async.executor=platform} se usa un
+ * pool fijo de hilos de plataforma, cuyo tamaño se indica con {@code async.threads}.</p>
+ */
+public final class AsyncService {
+    private static final int THREADS = Integer.getInteger("async.threads", 4);
+    private static final ExecutorService executor =
+            newExecutor(Strategy.from(System.getProperty("async.executor")), THREADS);
+
+    private AsyncService() { }
+
+    /**
+     * Estrategias disponibles para ejecutar el trabajo bloqueante de JDBC.
+     */
+    public enum Strategy {
+        /** Pool fijo de hilos de plataforma. */
+        PLATFORM,
+        /** Un hilo virtual por tarea. */
+        VIRTUAL;
+
+        /**
+         * @param name Nombre de la estrategia, sin importar mayúsculas. Puede ser {@code null}.
+         * @return Devuelve la estrategia indicada, o {@code VIRTUAL} si no se reconoce.
+         */
+        public static Strategy from(String name) {
+            return name != null && name.strip().equalsIgnoreCase(PLATFORM.name()) ? PLATFORM : VIRTUAL;
+        }
+    }
+
+    /**
+     * Crea un executor según la estrategia indicada.
+     * @param strategy Estrategia a utilizar.
+     * @param threads Cantidad de hilos del pool, sólo se usa con {@code PLATFORM}.
+     * @return Devuelve el executor creado. Quien lo crea es responsable de cerrarlo.
+     */
+    public static ExecutorService newExecutor(Strategy strategy, int threads) {
+        if (strategy == Strategy.PLATFORM) {
+            return Executors.newFixedThreadPool(threads, new WorkerFactory());
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-worker-", 1).factory());
+    }
+
+    /**
+     * Ejecuta una tarea bloqueante en el pool de la base de datos.
+     * @param task Tarea a ejecutar, normalmente una llamada a algún servicio.
+     * @param <T> Tipo del resultado.
+     * @return Devuelve un {@code CompletableFuture} que se completa con el resultado de la tarea.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Ejecuta una tarea bloqueante en el pool de la base de datos y entrega el resultado en el EDT.
+     * <p>Si el {@code CompletableFuture} devuelto se cancela antes de terminar la tarea, no se ejecuta ninguna acción.</p>
+     * @param task Tarea a ejecutar, normalmente una llamada a algún servicio.
+     * @param onResult Acción que recibe el resultado, se ejecuta mediante {@code SwingUtilities.invokeLater}.
+     * @param onError Acción que recibe el error si la tarea falla, también se ejecuta en el EDT.
+     * @param <T> Tipo del resultado.
+     * @return Devuelve el {@code CompletableFuture} de la entrega, útil para cancelarla.
+     */
+    public static <T> CompletableFuture<Void> submit(Supplier<T> task, Consumer<T> onResult,
+                                                     Consumer<Throwable> onError) {
+        var delivery = new CompletableFuture<Void>();
+        supply(task).whenComplete((result, ex) -> SwingUtilities.invokeLater(() -> {
+            if (delivery.isCancelled()) {
+                return;
+            }
+            if (ex != null) {
+                var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                cause.printStackTrace(System.out);
+                onError.accept(cause);
+                delivery.completeExceptionally(cause);
+                return;
+            }
+            onResult.accept(result);
+            delivery.complete(null);
+        }));
+        return delivery;
+    }
+
+    /**
+     * Crea hilos de plataforma demonio con nombre, para que no impidan cerrar la aplicación.
+     */
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, "db-worker-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,49 +1,257 @@
 package com.danicode.microblogging.services;
 
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.DelegatingConnection;
+import org.apache.commons.dbcp2.PoolingConnection;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
 
 import javax.sql.DataSource;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Se encarga de gestionar la conexión a base de datos MySQL.
+ * Se encarga de gestionar la conexión a base de datos, MySQL por defecto.
+ * <p>La configuración se lee de {@code database.properties} (o del archivo indicado en la propiedad del sistema
+ * {@code microblogging.config}) y cada valor puede sobrescribirse con una propiedad del sistema del mismo nombre.</p>
+ * <p>El motor se elige con {@code db.backend}, ver {@link StorageBackend}.</p>
  */
 public class ConnectionService {
-    private static final String URL = "jdbc:mysql://localhost:3306/microblogging";
-    private static final String USERNAME = "root";
-    private static final String PASSWORD = "admin";
-    private static final String DRIVER = "com.mysql.cj.jdbc.Driver";
-    private static final int INITIAL_SIZE = 50;
-    private static BasicDataSource dataSource = null;
+    private static final String CONFIG_RESOURCE = "/database.properties";
+    private static final String CONFIG_FILE_PROPERTY = "microblogging.config";
+    private static final Object LOCK = new Object();
+    private static volatile BasicDataSource dataSource = null;
+    private static volatile StorageBackend backend = StorageBackend.MYSQL;
+    private static boolean shutdownHookRegistered = false;
+    private static final AtomicLong statementHits = new AtomicLong();
+    private static final AtomicLong statementMisses = new AtomicLong();
 
     /**
      * Crea un nuevo {@code DataSource} y establece la configuración sólo si es {@code null}.
-     * <p>Es necesario para crear un pool de conexiones.</p>
+     * <p>Es necesario para crear un pool de conexiones. Usa doble verificación con un campo {@code volatile}, por lo
+     * que aunque varios hilos lo llamen a la vez, sólo se crea un pool.</p>
+     * <p>Si el motor lo necesita, también crea el esquema de la base de datos.</p>
      * @return Devuelve el {@code DataSource} y su configuración.
+     * @throws SQLException Si no se pudo preparar la base de datos del motor.
      */
-    private static DataSource getDataSource() {
-        if (dataSource == null) {
-            dataSource = new BasicDataSource();
-            dataSource.setUrl(URL);
-            dataSource.setUsername(USERNAME);
-            dataSource.setPassword(PASSWORD);
-            dataSource.setInitialSize(INITIAL_SIZE);
+    private static DataSource getDataSource() throws SQLException {
+        var source = dataSource;
+        if (source == null) {
+            synchronized (LOCK) {
+                source = dataSource;
+                if (source == null) {
+                    var properties = loadProperties();
+                    var selected = StorageBackend.from(properties.getProperty("db.backend"));
+                    source = createDataSource(selected, properties);
+                    try {
+                        selected.initialize(source, properties);
+                    } catch (SQLException ex) {
+                        source.close();
+                        throw ex;
+                    }
+                    backend = selected;
+                    dataSource = source;
+                    if (!shutdownHookRegistered) {
+                        Runtime.getRuntime().addShutdownHook(new Thread(ConnectionService::shutdown, "pool-shutdown"));
+                        shutdownHookRegistered = true;
+                    }
+                }
+            }
         }
-        return dataSource;
+        return source;
     }
 
     /**
-     * Establece el driver de MySQL y crea una nueva conexión.
+     * Cierra el pool de conexiones, liberando las conexiones inactivas y las que se devuelvan después.
+     * <p>Es seguro llamarlo varias veces. Si después se pide otra conexión, se crea un nuevo pool.</p>
+     */
+    public static void shutdown() {
+        synchronized (LOCK) {
+            if (dataSource != null) {
+                try {
+                    dataSource.close();
+                } catch (SQLException ex) {
+                    ex.printStackTrace(System.out);
+                }
+                dataSource = null;
+            }
+        }
+    }
+
+    /**
+     * Carga la configuración por defecto, la del archivo externo si existe y, por último, las propiedades del sistema.
+     * @return Devuelve la configuración combinada.
+     */
+    private static Properties loadProperties() {
+        var properties = new Properties();
+        try (InputStream in = ConnectionService.class.getResourceAsStream(CONFIG_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace(System.out);
+        }
+
+        var configFile = System.getProperty(CONFIG_FILE_PROPERTY);
+        if (configFile != null) {
+            try (InputStream in = new FileInputStream(configFile)) {
+                properties.load(in);
+            } catch (IOException ex) {
+                ex.printStackTrace(System.out);
+            }
+        }
+
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("db."))
+                .forEach(key -> properties.setProperty(key, System.getProperty(key)));
+        return properties;
+    }
+
+    /**
+     * Crea el pool de conexiones según la configuración indicada.
+     * @param backend Motor de base de datos elegido.
+     * @param properties Configuración obtenida mediante {@code loadProperties}.
+     * @return Devuelve el pool configurado.
+     */
+    private static BasicDataSource createDataSource(StorageBackend backend, Properties properties) {
+        var source = new BasicDataSource();
+        source.setDriverClassName(backend.getDriver(properties));
+        source.setUrl(backend.getUrl(properties));
+        source.setUsername(backend.getUsername(properties));
+        source.setPassword(backend.getPassword(properties));
+
+        source.setInitialSize(getInt(properties, "db.pool.initialSize", 2));
+        source.setMinIdle(getInt(properties, "db.pool.minIdle", 0));
+        var maxTotal = getInt(properties, "db.pool.maxTotal", 20);
+        source.setMaxIdle(getInt(properties, "db.pool.maxIdle", maxTotal));
+        source.setMaxTotal(maxTotal);
+        source.setMaxWait(Duration.ofMillis(getLong(properties, "db.pool.maxWaitMillis", 10000)));
+
+        var validationQuery = properties.getProperty("db.pool.validationQuery", "");
+        if (!validationQuery.isBlank()) {
+            source.setValidationQuery(validationQuery);
+        }
+        source.setValidationQueryTimeout(Duration.ofSeconds(getInt(properties, "db.pool.validationQueryTimeout", 5)));
+        source.setTestOnBorrow(getBoolean(properties, "db.pool.testOnBorrow", true));
+        source.setTestWhileIdle(getBoolean(properties, "db.pool.testWhileIdle", true));
+
+        source.setDurationBetweenEvictionRuns(
+                Duration.ofMillis(getLong(properties, "db.pool.timeBetweenEvictionRunsMillis", 30000)));
+        source.setMinEvictableIdle(Duration.ofMillis(getLong(properties, "db.pool.minEvictableIdleTimeMillis", 60000)));
+        source.setNumTestsPerEvictionRun(getInt(properties, "db.pool.numTestsPerEvictionRun", 3));
+
+        source.setPoolPreparedStatements(getBoolean(properties, "db.pool.poolPreparedStatements", true));
+        source.setMaxOpenPreparedStatements(getInt(properties, "db.pool.maxOpenPreparedStatements", 100));
+        source.setAccessToUnderlyingConnectionAllowed(true);
+
+        var jmxName = properties.getProperty("db.pool.jmxName", "");
+        if (!jmxName.isBlank()) {
+            source.setJmxName(jmxName);
+        }
+        return source;
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        var value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.strip());
+    }
+
+    private static long getLong(Properties properties, String key, long defaultValue) {
+        var value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.strip());
+    }
+
+    private static boolean getBoolean(Properties properties, String key, boolean defaultValue) {
+        var value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.strip());
+    }
+
+    /**
+     * Obtiene una conexión del pool. El driver se registra una sola vez al crear el pool.
      * @return Devuelve la nueva conexión.
-     * @throws Exception Puede ser ClassNotFoundException y/o SQLException.
+     * @throws Exception Puede ser SQLException.
      */
     public static Connection getConnection() throws Exception {
-        Class.forName(DRIVER);
         return getDataSource().getConnection();
     }
 
+    /**
+     * @return Devuelve el motor de base de datos del pool actual, o {@code MYSQL} si aún no se crea el pool.
+     */
+    public static StorageBackend getBackend() { return backend; }
+
+    /**
+     * Prepara una sentencia reutilizando la del pool de sentencias de la conexión física, si ya fue preparada antes.
+     * <p>Además lleva la cuenta de aciertos y fallos del pool de sentencias.</p>
+     * @param conn Conexión obtenida mediante {@code getConnection}, o una conexión externa.
+     * @param sql Sentencia SQL a preparar.
+     * @return Devuelve la sentencia preparada. Al cerrarla, vuelve al pool de sentencias.
+     * @throws SQLException Si no se pudo preparar la sentencia.
+     */
+    public static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        return prepare(conn, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Igual que {@link #prepare(Connection, String)}, pero permite pedir las llaves generadas por un {@code INSERT}.
+     * @param conn Conexión obtenida mediante {@code getConnection}, o una conexión externa.
+     * @param sql Sentencia SQL a preparar.
+     * @param autoGeneratedKeys {@code Statement.RETURN_GENERATED_KEYS} o {@code Statement.NO_GENERATED_KEYS}.
+     * @return Devuelve la sentencia preparada. Al cerrarla, vuelve al pool de sentencias.
+     * @throws SQLException Si no se pudo preparar la sentencia.
+     */
+    public static PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys) throws SQLException {
+        var statementPool = getStatementPool(conn);
+        if (statementPool == null) {
+            statementMisses.incrementAndGet();
+            return conn.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        var created = statementPool.getCreatedCount();
+        var stmt = conn.prepareStatement(sql, autoGeneratedKeys);
+        if (statementPool.getCreatedCount() > created) {
+            statementMisses.incrementAndGet();
+        } else {
+            statementHits.incrementAndGet();
+        }
+        return stmt;
+    }
+
+    /**
+     * Busca el pool de sentencias de la conexión física que hay detrás de la conexión del pool.
+     * @param conn Conexión a inspeccionar.
+     * @return Devuelve el pool de sentencias, o {@code null} si la conexión no reutiliza sentencias.
+     */
+    private static GenericKeyedObjectPool<?, ?> getStatementPool(Connection conn) {
+        var current = conn;
+        while (current instanceof DelegatingConnection) {
+            if (current instanceof PoolingConnection) {
+                var statementPool = ((PoolingConnection) current).getStatementPool();
+                return statementPool instanceof GenericKeyedObjectPool ? (GenericKeyedObjectPool<?, ?>) statementPool : null;
+            }
+            current = ((DelegatingConnection<?>) current).getDelegate();
+        }
+        return null;
+    }
+
+    /**
+     * @return Devuelve cuántas sentencias fueron reutilizadas del pool de sentencias.
+     */
+    public static long getStatementHits() { return statementHits.get(); }
+
+    /**
+     * @return Devuelve cuántas sentencias tuvieron que prepararse de nuevo.
+     */
+    public static long getStatementMisses() { return statementMisses.get(); }
+
     /**
      * Cuerra la conexion interna dado caso que no exista la conexion externa.
      * <p>La conexión externa es para manejar transacciones.</p>
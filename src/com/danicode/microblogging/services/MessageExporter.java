@@ -0,0 +1,163 @@
+package com.danicode.microblogging.services;
+
+import com.danicode.microblogging.constants.BlogConstants;
+import com.danicode.microblogging.model.domain.Message;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Exporta todos los mensajes a un archivo CSV o JSONL, escribiendo cada fila conforme llega de la base de datos, así la
+ * memoria usada no depende de la cantidad de mensajes.
+ * <p>Cada registro tiene los campos {@code message_id}, {@code username}, {@code date_time} y {@code message}, por lo
+ * que el archivo puede volver a importarse con {@link MessageImporter}.</p>
+ */
+public class MessageExporter {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss.SSS");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final MessageService messageService = new MessageService();
+    private final int fetchSize;
+
+    /**
+     * @param fetchSize Cantidad de filas que se piden al servidor cada vez.
+     */
+    public MessageExporter(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Resultado de una exportación.
+     */
+    public static final class Result {
+        private final int exported;
+        private final long millis;
+
+        private Result(int exported, long millis) {
+            this.exported = exported;
+            this.millis = millis;
+        }
+
+        public int getExported() { return this.exported; }
+
+        public long getMillis() { return this.millis; }
+
+        public double getRowsPerSecond() {
+            return this.millis == 0 ? this.exported : this.exported * 1000.0 / this.millis;
+        }
+    }
+
+    /**
+     * Exporta todos los mensajes, del más antiguo al más reciente. Si el archivo existe, se reemplaza.
+     * @param file Archivo de destino; el formato se elige por su extensión, ver {@link MessageImporter.Format}.
+     * @return Devuelve cuántos mensajes se exportaron.
+     * @throws IOException Si no se pudo escribir el archivo o leer los mensajes.
+     */
+    public Result exportFile(Path file) throws IOException {
+        var start = System.nanoTime();
+        var format = MessageImporter.Format.from(file);
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             var writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            if (format == MessageImporter.Format.CSV) {
+                writer.write("message_id,username,date_time,message\n");
+            }
+
+            var exported = this.messageService.forEachMessage(BlogConstants.ORDER_BY_OLD_MESSAGES, this.fetchSize,
+                    message -> write(writer, format, message));
+            if (exported < 0) {
+                throw new IOException("No se pudieron leer los mensajes de la base de datos.");
+            }
+            return new Result(exported, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private static void write(Writer writer, MessageImporter.Format format, Message message) throws IOException {
+        var username = message.getUser().getUsername();
+        var dateTime = DATE_TIME_FORMATTER.format(message.getDateTime());
+        if (format == MessageImporter.Format.JSONL) {
+            writer.write("{\"message_id\":");
+            writer.write(Integer.toString(message.getIdMessage()));
+            writer.write(",\"username\":");
+            writeJson(writer, username);
+            writer.write(",\"date_time\":");
+            writeJson(writer, dateTime);
+            writer.write(",\"message\":");
+            writeJson(writer, message.getMessage());
+            writer.write("}\n");
+        } else {
+            writer.write(Integer.toString(message.getIdMessage()));
+            writer.write(',');
+            writeCsv(writer, username);
+            writer.write(',');
+            writer.write(dateTime);
+            writer.write(',');
+            writeCsv(writer, message.getMessage());
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Escribe un campo CSV, entre comillas sólo si tiene comas, comillas o saltos de línea.
+     */
+    static void writeCsv(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Escribe una cadena JSON, escapando las comillas, las diagonales invertidas y los caracteres de control.
+     */
+    static void writeJson(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (var i = 0; i < value.length(); i ++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Uso: {@code MessageExporter <archivo.csv|archivo.jsonl> [filas por lectura]}. Usa la misma configuración de base
+     * de datos que la aplicación; con MySQL, la URL debe incluir {@code useCursorFetch=true}.
+     */
+    public static void main(String... args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Uso: MessageExporter <archivo.csv|archivo.jsonl> [filas por lectura]");
+            System.exit(2);
+        }
+
+        var fetchSize = args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("export.fetchSize", 1000);
+        try {
+            var result = new MessageExporter(fetchSize).exportFile(Path.of(args[0]));
+            System.out.printf("Exportados: %d, %d ms (%.0f mensajes/s)%n", result.getExported(), result.getMillis(),
+                    result.getRowsPerSecond());
+        } finally {
+            ConnectionService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.danicode.microblogging.services;
+
+import com.danicode.microblogging.model.domain.Message;
+import com.danicode.microblogging.model.domain.User;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Importa mensajes desde un archivo CSV o JSONL, leyéndolo por partes para que la memoria no dependa del tamaño del
+ * archivo. Los mensajes se insertan en lotes mediante {@code MessageService.createMessages}.
+ * <p>Cada registro tiene los campos {@code username}, {@code date_time} (por ejemplo {@code 2021-11-01 09:15:00})
+ * y {@code message}. El CSV debe tener una fila de encabezados con esos nombres; el JSONL, un objeto por línea.</p>
+ * <p>Se omiten los registros mal formados, los de usuarios que no existen y los mensajes vacíos o de más de 140
+ * caracteres.</p>
+ */
+public class MessageImporter {
+    private static final int MAX_LENGTH = 140;
+    private final MessageService messageService = new MessageService();
+    private final UserService userService = new UserService();
+    private final int chunkSize;
+
+    /**
+     * @param chunkSize Cantidad de mensajes por lote y por transacción.
+     */
+    public MessageImporter(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Formatos de archivo admitidos.
+     */
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * @param file Archivo a importar.
+         * @return Devuelve {@code JSONL} si la extensión es {@code .jsonl} o {@code .json}, si no, {@code CSV}.
+         */
+        public static Format from(Path file) {
+            var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".json") ? JSONL : CSV;
+        }
+    }
+
+    /**
+     * Resultado de una importación.
+     */
+    public static final class Result {
+        private final int imported, skipped;
+        private final long millis;
+
+        private Result(int imported, int skipped, long millis) {
+            this.imported = imported;
+            this.skipped = skipped;
+            this.millis = millis;
+        }
+
+        public int getImported() { return this.imported; }
+
+        public int getSkipped() { return this.skipped; }
+
+        public long getMillis() { return this.millis; }
+
+        public double getRowsPerSecond() {
+            return this.millis == 0 ? this.imported : this.imported * 1000.0 / this.millis;
+        }
+    }
+
+    /**
+     * Importa todos los mensajes del archivo.
+     * @param file Archivo CSV o JSONL, codificado en UTF-8.
+     * @return Devuelve cuántos mensajes se importaron y cuántos registros se omitieron.
+     * @throws IOException Si no se pudo leer el archivo o insertar un bloque. Los bloques anteriores quedan
+     * confirmados y el mensaje de la excepción dice cuántos mensajes se importaron.
+     */
+    public Result importFile(Path file) throws IOException {
+        var start = System.nanoTime();
+        var imported = new int[1];
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            var records = new Records(reader, Format.from(file));
+            this.messageService.createMessages(records, this.chunkSize, rows -> imported[0] += rows);
+            return new Result(imported[0], records.skipped, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException ex) {
+            throw ex;
+        } catch (UncheckedIOException ex) {
+            throw new IOException(failure(imported[0]), ex.getCause());
+        } catch (Exception ex) {
+            throw new IOException(failure(imported[0]), ex);
+        }
+    }
+
+    private static String failure(int imported) {
+        return "La importación se detuvo después de confirmar " + imported + " mensajes.";
+    }
+
+    /**
+     * Busca al autor de un mensaje, recordando también los usuarios que no existen.
+     */
+    private User author(Map<String, User> authors, String username) {
+        var key = username.toLowerCase(Locale.ROOT);
+        if (!authors.containsKey(key)) {
+            var user = this.userService.getUser(username);
+            authors.put(key, user != null && user.getIdUser() != 0 ? user : null);
+        }
+        return authors.get(key);
+    }
+
+    /**
+     * Recorre los registros válidos del archivo conforme se piden.
+     */
+    private final class Records implements Iterator<Message> {
+        private final BufferedReader reader;
+        private final Format format;
+        private final Map<String, User> authors = new HashMap<>();
+        private List<String> header;
+        private Message next;
+        private boolean done;
+        private int skipped;
+
+        private Records(BufferedReader reader, Format format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && !this.done) {
+                try {
+                    this.next = this.read();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public Message next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var message = this.next;
+            this.next = null;
+            return message;
+        }
+
+        /**
+         * @return Devuelve el siguiente mensaje, o {@code null} si el registro se omitió o terminó el archivo.
+         */
+        private Message read() throws IOException {
+            Map<String, String> fields;
+            if (this.format == Format.JSONL) {
+                var line = this.reader.readLine();
+                if (line == null) {
+                    this.done = true;
+                    return null;
+                }
+                if (line.isBlank()) {
+                    return null;
+                }
+                fields = parseJson(line);
+            } else {
+                if (this.header == null) {
+                    this.header = readCsv(this.reader);
+                    if (this.header == null) {
+                        this.done = true;
+                    }
+                    return null;
+                }
+                var values = readCsv(this.reader);
+                if (values == null) {
+                    this.done = true;
+                    return null;
+                }
+                fields = new HashMap<>();
+                for (var i = 0; i < this.header.size() && i < values.size(); i ++) {
+                    fields.put(this.header.get(i).strip().toLowerCase(Locale.ROOT), values.get(i));
+                }
+            }
+
+            var message = fields != null ? this.toMessage(fields) : null;
+            if (message == null) {
+                this.skipped ++;
+            }
+            return message;
+        }
+
+        private Message toMessage(Map<String, String> fields) {
+            var username = fields.get("username");
+            var dateTime = fields.get("date_time");
+            var text = fields.get("message");
+            if (username == null || dateTime == null || text == null || text.isBlank() ||
+                    text.codePointCount(0, text.length()) > MAX_LENGTH) {
+                return null;
+            }
+
+            var user = author(this.authors, username.strip());
+            if (user == null) {
+                return null;
+            }
+            try {
+                var parsed = LocalDateTime.parse(dateTime.strip().replace(' ', 'T')).truncatedTo(ChronoUnit.MILLIS);
+                return new Message(0, user, parsed, text);
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Lee un registro CSV (RFC 4180): los campos entre comillas pueden tener comas, saltos de línea y comillas
+     * dobles escritas como {@code ""}.
+     * @return Devuelve los campos del registro, o {@code null} al terminar el archivo.
+     */
+    static List<String> readCsv(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        var field = new StringBuilder();
+        var quoted = false;
+        var read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Lee un objeto JSON plano de una línea. Los valores que no son cadenas se guardan como texto.
+     * @return Devuelve los campos del objeto, o {@code null} si la línea no es un objeto válido.
+     */
+    static Map<String, String> parseJson(String line) {
+        Map<String, String> fields = new HashMap<>();
+        var position = new int[] {skipSpaces(line, 0)};
+        if (position[0] >= line.length() || line.charAt(position[0]) != '{') {
+            return null;
+        }
+        position[0] = skipSpaces(line, position[0] + 1);
+        if (position[0] < line.length() && line.charAt(position[0]) == '}') {
+            return fields;
+        }
+
+        while (position[0] < line.length()) {
+            var key = readJsonString(line, position);
+            position[0] = skipSpaces(line, position[0]);
+            if (key == null || position[0] >= line.length() || line.charAt(position[0]) != ':') {
+                return null;
+            }
+            position[0] = skipSpaces(line, position[0] + 1);
+
+            String value;
+            if (position[0] < line.length() && line.charAt(position[0]) == '"') {
+                value = readJsonString(line, position);
+                if (value == null) {
+                    return null;
+                }
+            } else {
+                var end = position[0];
+                while (end < line.length() && line.charAt(end) != ',' && line.charAt(end) != '}') {
+                    end ++;
+                }
+                value = line.substring(position[0], end).strip();
+                value = value.equals("null") ? null : value;
+                position[0] = end;
+            }
+            fields.put(key, value);
+
+            position[0] = skipSpaces(line, position[0]);
+            if (position[0] >= line.length()) {
+                return null;
+            }
+            if (line.charAt(position[0]) == '}') {
+                return fields;
+            }
+            if (line.charAt(position[0]) != ',') {
+                return null;
+            }
+            position[0] = skipSpaces(line, position[0] + 1);
+        }
+        return null;
+    }
+
+    private static String readJsonString(String line, int[] position) {
+        if (position[0] >= line.length() || line.charAt(position[0]) != '"') {
+            return null;
+        }
+
+        var value = new StringBuilder();
+        for (var i = position[0] + 1; i < line.length(); i ++) {
+            var c = line.charAt(i);
+            if (c == '"') {
+                position[0] = i + 1;
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (++ i >= line.length()) {
+                return null;
+            }
+            switch (line.charAt(i)) {
+                case 'n' -> value.append('\n');
+                case 't' -> value.append('\t');
+                case 'r' -> value.append('\r');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= line.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException ex) {
+                        return null;
+                    }
+                    i += 4;
+                }
+                default -> value.append(line.charAt(i));
+            }
+        }
+        return null;
+    }
+
+    private static int skipSpaces(String line, int position) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position ++;
+        }
+        return position;
+    }
+
+    /**
+     * Uso: {@code MessageImporter <archivo.csv|archivo.jsonl> [mensajes por bloque]}. Usa la misma configuración de
+     * base de datos que la aplicación; con MySQL conviene {@code rewriteBatchedStatements=true} en la URL.
+     */
+    public static void main(String... args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Uso: MessageImporter <archivo.csv|archivo.jsonl> [mensajes por bloque]");
+            System.exit(2);
+        }
+
+        var chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("import.chunkSize", 5000);
+        var status = 0;
+        try {
+            var result = new MessageImporter(chunkSize).importFile(Path.of(args[0]));
+            System.out.printf("Importados: %d, omitidos: %d, %d ms (%.0f mensajes/s)%n", result.getImported(),
+                    result.getSkipped(), result.getMillis(), result.getRowsPerSecond());
+        } catch (IOException ex) {
+            ex.printStackTrace(System.out);
+            status = 1;
+        } finally {
+            ConnectionService.shutdown();
+        }
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+}
@@ -5,10 +5,16 @@ import com.danicode.microblogging.model.dao.implementations.DAOMessageImpl;
 import com.danicode.microblogging.model.dao.templates.DAOMessage;
 import com.danicode.microblogging.model.domain.Message;
 import com.danicode.microblogging.model.domain.User;
+import com.danicode.microblogging.services.search.MessageIndex;
 
 import java.sql.Connection;
-import java.util.Collections;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 import static com.danicode.microblogging.services.ConnectionService.*;
 
@@ -16,8 +22,6 @@ import static com.danicode.microblogging.services.ConnectionService.*;
  * Se encarga de gestionar los mensajes y la base de datos.
  */
 public class MessageService {
-    private Connection conn;
-    private DAOMessage messageDao;
     private final UserService userService;
 
     public MessageService() {
@@ -30,21 +34,25 @@ public class MessageService {
      * @return Devuelve true si la operación fue exitosa.
      */
     public boolean createMessage(Message message) {
+        Connection conn = null;
         var isCreated = false;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.messageDao = new DAOMessageImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
 
-            isCreated = this.messageDao.create(message) != 0;
+            isCreated = messageDao.create(message) != 0;
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
+            if (isCreated && MessageIndex.isEnabled()) {
+                MessageIndex.onCreated(message.getIdMessage(), message.getMessage());
+            }
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -53,6 +61,78 @@ public class MessageService {
         return isCreated;
     }
 
+    /**
+     * Inserta muchos mensajes mediante lotes JDBC, confirmando la transacción cada {@code chunkSize} mensajes.
+     * <p>Si ocurre un error, sólo se pierde el bloque en curso: los anteriores ya quedaron confirmados.</p>
+     * @param messages Mensajes a registrar, cada uno con su usuario y fecha inicializados.
+     * @param chunkSize Cantidad de mensajes por lote y por transacción.
+     * @return Devuelve la cantidad de mensajes insertados.
+     * @see #createMessages(Iterator, int, IntConsumer)
+     */
+    public int createMessages(Collection<Message> messages, int chunkSize) {
+        var created = new int[1];
+        try {
+            this.createMessages(messages.iterator(), chunkSize, rows -> created[0] += rows);
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
+        }
+        return created[0];
+    }
+
+    /**
+     * Igual que {@link #createMessages(Collection, int)}, pero recorre los mensajes conforme se insertan, así pueden
+     * leerse de un archivo sin cargarlos todos en memoria.
+     * <p>Si el iterador o un lote fallan, se revierte el bloque en curso y se lanza la excepción; los bloques
+     * anteriores ya quedaron confirmados y se avisaron a {@code onCommit}.</p>
+     * @param messages Mensajes a registrar.
+     * @param chunkSize Cantidad de mensajes por lote y por transacción.
+     * @param onCommit Recibe la cantidad de mensajes de cada bloque confirmado.
+     * @return Devuelve la cantidad de mensajes insertados.
+     * @throws Exception Si no se pudo leer un mensaje o insertar un bloque.
+     */
+    public int createMessages(Iterator<Message> messages, int chunkSize, IntConsumer onCommit) throws Exception {
+        var created = 0;
+        try (var conn = getConnection()) {
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
+
+            try {
+                List<Message> chunk = new ArrayList<>(chunkSize);
+                while (messages.hasNext()) {
+                    chunk.add(messages.next());
+                    if (chunk.size() == chunkSize) {
+                        created += this.createChunk(conn, messageDao, chunk, onCommit);
+                    }
+                }
+                created += this.createChunk(conn, messageDao, chunk, onCommit);
+            } catch (Exception ex) {
+                conn.rollback();
+                throw ex;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Inserta y confirma un bloque de mensajes, y deja la lista vacía para el siguiente bloque.
+     * @return Devuelve la cantidad de mensajes insertados.
+     */
+    private int createChunk(Connection conn, DAOMessageImpl messageDao, List<Message> chunk, IntConsumer onCommit)
+            throws Exception {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        var created = messageDao.createAll(chunk);
+        conn.commit();
+        onCommit.accept(created);
+        if (MessageIndex.isEnabled()) {
+            chunk.forEach(message -> MessageIndex.onCreated(message.getIdMessage(), message.getMessage()));
+        }
+        chunk.clear();
+        return created;
+    }
+
     /**
      * Obtiene una lista de mensajes según el filtro indicado.
      * <p>Preferiblemente, usa las constantes de {@code BLogConstants} para filtrar los mensajes.</p>
@@ -61,31 +141,146 @@ public class MessageService {
      *                <p>En cambio, usa el username del {@code userLogged} si el filtro es {@code LIST_MY_MESSAGES}.</p>
      *                <p>Inicializa el mensaje si usas {@code LIST_BY_MESSAGE}.</p>
      *                <p>Si sólo deseas obtener TODOS los mensajes, {@code message} puede ser {@code null}.</p>
+     * @see #getMessages(int, Message, String)
      */
     public List<Message> getMessages(int filter, Message message) {
+        return this.getMessages(filter, message, BlogConstants.ORDER_BY_OLD_MESSAGES);
+    }
+
+    /**
+     * Obtiene una lista de mensajes según el filtro indicado, ordenada por la base de datos.
+     * @param filter Ver la documentación de {@code getMessages} para obtener la información.
+     * @param message Ver la documentación de {@code getMessages} para obtener la información.
+     * @param order Puede ser {@code ORDER_BY_NEW_MESSAGES} o {@code ORDER_BY_OLD_MESSAGES}.
+     * @return Devuelve los mensajes en el orden indicado, o {@code null} si ocurre algún error.
+     * @see #getMessages(int, Message)
+     */
+    public List<Message> getMessages(int filter, Message message, String order) {
+        Connection conn = null;
         List<Message> messages = null;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.messageDao = new DAOMessageImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
 
             if (filter == BlogConstants.LIST_MESSAGES) {
-                messages = this.messageDao.list();
+                messages = messageDao.list(order);
             } else if (filter == BlogConstants.LIST_USER_MESSAGES) {
-                messages = this.messageDao.findByUsername(message.getUser().getUsername());
+                messages = messageDao.findByUsername(message.getUser().getUsername(), order);
             } else if (filter == BlogConstants.LIST_BY_MESSAGE) {
-                messages = this.messageDao.findByMessage(message.getMessage());
+                var ids = searchIndex(message.getMessage(), 0, Integer.MAX_VALUE, order);
+                messages = ids != null ? messageDao.findByIds(ids, order)
+                        : messageDao.findByMessage(message.getMessage(), order);
             } else if (filter == BlogConstants.LIST_MY_MESSAGES) {
-                messages = this.messageDao.findByUsername(this.userService.getUserLogged().getUsername());
+                messages = messageDao.findByUsername(this.userService.getUserLogged().getUsername(), order);
             }
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (Exception ex1) {
+                ex1.printStackTrace(System.out);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Obtiene una sola página de mensajes mediante paginación por cursor (keyset), sin cargar la tabla completa.
+     * @param filter Ver la documentación de {@code getMessages} para obtener la información.
+     * @param message Ver la documentación de {@code getMessages} para obtener la información.
+     * @param order Puede ser {@code ORDER_BY_NEW_MESSAGES} o {@code ORDER_BY_OLD_MESSAGES}.
+     * @param cursor Id del último mensaje de la página anterior. Usa {@code 0} para obtener la primera página.
+     * @param limit Cantidad máxima de mensajes de la página.
+     * @return Devuelve los mensajes de la página, o {@code null} si ocurre algún error.
+     * @see #getMessages(int, Message)
+     */
+    public List<Message> getPage(int filter, Message message, String order, int cursor, int limit) {
+        Connection conn = null;
+        List<Message> messages = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
+
+            if (filter == BlogConstants.LIST_USER_MESSAGES) {
+                messages = messageDao.page(cursor, limit, filter, message.getUser().getUsername(), order);
+            } else if (filter == BlogConstants.LIST_BY_MESSAGE) {
+                var ids = searchIndex(message.getMessage(), cursor, limit, order);
+                messages = ids != null ? messageDao.findByIds(ids, order)
+                        : messageDao.page(cursor, limit, filter, message.getMessage(), order);
+            } else if (filter == BlogConstants.LIST_MY_MESSAGES) {
+                messages = messageDao.page(cursor, limit, BlogConstants.LIST_USER_MESSAGES,
+                        this.userService.getUserLogged().getUsername(), order);
+            } else {
+                messages = messageDao.page(cursor, limit, BlogConstants.LIST_MESSAGES, null, order);
+            }
+
+            conn.commit();
+            conn.close();
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (Exception ex1) {
+                ex1.printStackTrace(System.out);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Busca mensajes por su contenido mediante el índice FULLTEXT, ordenados por relevancia.
+     * <p>Cada palabra de al menos 3 caracteres debe aparecer en el mensaje, ya sea completa o como prefijo. Si
+     * ninguna palabra alcanza ese tamaño, se busca el texto tal cual y se ordena de más reciente a más viejo.</p>
+     * <p>Con el índice en memoria activo ({@code search.backend=memory}) los resultados se ordenan de más reciente
+     * a más viejo.</p>
+     * @param text Texto a buscar.
+     * @param limit Cantidad máxima de resultados.
+     * @return Devuelve los mensajes encontrados, o {@code null} si ocurre algún error.
+     * @see #searchMessages(String, int, int)
+     */
+    public List<Message> searchMessages(String text, int limit) {
+        return this.searchMessages(text, 0, limit);
+    }
+
+    /**
+     * Obtiene una página de la búsqueda por relevancia. Como el orden no sigue a los ids, las páginas se recorren
+     * por posición en lugar de por cursor.
+     * @param text Texto a buscar.
+     * @param offset Cantidad de resultados de las páginas anteriores. Usa {@code 0} para obtener la primera página.
+     * @param limit Cantidad máxima de resultados de la página.
+     * @return Devuelve los mensajes de la página, o {@code null} si ocurre algún error.
+     * @see #searchMessages(String, int)
+     */
+    public List<Message> searchMessages(String text, int offset, int limit) {
+        Connection conn = null;
+        List<Message> messages = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
+
+            var ids = searchIndex(text, 0, offset + limit, BlogConstants.ORDER_BY_NEW_MESSAGES);
+            messages = ids != null
+                    ? messageDao.findByIds(Arrays.copyOfRange(ids, Math.min(offset, ids.length), ids.length),
+                            BlogConstants.ORDER_BY_NEW_MESSAGES)
+                    : messageDao.search(text, offset, limit);
+
+            conn.commit();
+            conn.close();
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
+            try {
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -109,21 +304,26 @@ public class MessageService {
      * @return Devuelve true si la operación fue exitosa.
      */
     public boolean editMessage(Message message) {
+        Connection conn = null;
         var edited = false;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.messageDao = new DAOMessageImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
 
-            edited = this.messageDao.update(message) != 0;
+            var previous = MessageIndex.isEnabled() ? messageDao.findById(message.getIdMessage()) : null;
+            edited = messageDao.update(message) != 0;
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
+            if (edited && previous != null) {
+                MessageIndex.onEdited(message.getIdMessage(), previous.getMessage(), message.getMessage());
+            }
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -133,32 +333,35 @@ public class MessageService {
     }
 
     /**
-     * Obtiene un mensaje según la hora y fecha de registro.
-     * @param dateTime Fecha y hora a consultar.
-     * @return Devuelve el mensaje si fue encontrado, de lo contrario devuelve {@code null}.
+     * Obtiene los mensajes publicados dentro de un rango de fechas.
+     * @param from Fecha y hora inicial, inclusive.
+     * @param to Fecha y hora final, exclusiva.
+     * @param order Puede ser {@code ORDER_BY_NEW_MESSAGES} o {@code ORDER_BY_OLD_MESSAGES}.
+     * @return Devuelve los mensajes encontrados, o {@code null} si ocurre algún error.
      */
-    public Message getMessage(String dateTime) {
-        Message message = null;
+    public List<Message> getMessages(LocalDateTime from, LocalDateTime to, String order) {
+        Connection conn = null;
+        List<Message> messages = null;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.messageDao = new DAOMessageImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
 
-            message = this.messageDao.findByDateTime(dateTime);
+            messages = messageDao.findByDateTime(from, to, order);
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
             }
         }
-        return message;
+        return messages;
     }
 
     /**
@@ -167,21 +370,26 @@ public class MessageService {
      * @return Devuelve true si la operación fue exitosa.
      */
     public boolean deleteMessage(int idMessage) {
+        Connection conn = null;
         var deleted = false;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.messageDao = new DAOMessageImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
 
-            deleted = this.messageDao.delete(idMessage) != 0;
+            var previous = MessageIndex.isEnabled() ? messageDao.findById(idMessage) : null;
+            deleted = messageDao.delete(idMessage) != 0;
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
+            if (deleted && previous != null) {
+                MessageIndex.onDeleted(idMessage, previous.getMessage());
+            }
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -190,26 +398,68 @@ public class MessageService {
         return deleted;
     }
 
+    /**
+     * Cuenta los mensajes publicados por un usuario mediante {@code COUNT(*)}, sin leerlos.
+     * @param idUser Id del usuario.
+     * @return Devuelve la cantidad de mensajes, o {@code -1} si ocurre algún error.
+     */
+    public int countUserMessages(int idUser) {
+        var count = -1;
+        try (var conn = getConnection()) {
+            var messageDao = new DAOMessageImpl(conn);
+            count = messageDao.countByUser(idUser);
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
+        }
+        return count;
+    }
+
+    /**
+     * Recorre todos los mensajes con un cursor de sólo avance, sin cargarlos en una lista.
+     * <p>Cada mensaje llega con su usuario, obtenido en la misma consulta. Con MySQL, la URL debe incluir
+     * {@code useCursorFetch=true} para que el servidor entregue las filas de {@code fetchSize} en {@code fetchSize}.</p>
+     * @param order Puede ser {@code ORDER_BY_NEW_MESSAGES} o {@code ORDER_BY_OLD_MESSAGES}.
+     * @param fetchSize Cantidad de filas que se piden al servidor cada vez.
+     * @param handler Acción que recibe cada mensaje; no debe guardarlos si la memoria debe mantenerse constante.
+     * @return Devuelve la cantidad de mensajes recorridos, o {@code -1} si ocurre algún error.
+     */
+    public int forEachMessage(String order, int fetchSize, DAOMessage.MessageHandler handler) {
+        var rows = -1;
+        try (var conn = getConnection()) {
+            var messageDao = new DAOMessageImpl(conn);
+            rows = messageDao.forEach(order, fetchSize, handler);
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
+        }
+        return rows;
+    }
+
     /**
      * Borra todos los mensajes del usuario logueado.
      * @return Devuelve true si la operación fue exitosa.
      */
     public boolean deleteUserMessages() {
+        Connection conn = null;
         var deleted = false;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.messageDao = new DAOMessageImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var messageDao = new DAOMessageImpl(conn);
 
-            deleted = this.messageDao.deleteUserMessages(this.userService.getUserLogged().getIdUser()) != 0;
+            var userLogged = this.userService.getUserLogged();
+            var ids = MessageIndex.isEnabled() ? messageDao.findIdsByUser(userLogged.getIdUser()) : null;
+            deleted = messageDao.deleteUserMessages(userLogged.getIdUser()) != 0;
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
+            if (deleted && ids != null) {
+                MessageIndex.onDeletedAll(ids);
+            }
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -218,9 +468,26 @@ public class MessageService {
         return deleted;
     }
 
+    /**
+     * Busca en el índice en memoria, si está activo.
+     * @param text Texto a buscar.
+     * @param cursor Id del último mensaje de la página anterior, o {@code 0}.
+     * @param limit Cantidad máxima de resultados.
+     * @param order Puede ser {@code ORDER_BY_NEW_MESSAGES} o {@code ORDER_BY_OLD_MESSAGES}.
+     * @return Devuelve los ids encontrados, o {@code null} si la búsqueda debe hacerla la base de datos.
+     * @throws Exception Si no se pudo cargar el índice.
+     */
+    private static int[] searchIndex(String text, int cursor, int limit, String order) throws Exception {
+        if (!MessageIndex.isEnabled()) {
+            return null;
+        }
+        return MessageIndex.get().search(text, cursor, limit, !BlogConstants.ORDER_BY_OLD_MESSAGES.equals(order));
+    }
+
     /**
      * Ordena los mensajes según el orden.
      * <p>Nuevamente, preferiblemente usar las constantes de {@code BlogConstants} para filtrado y ordenamiento.</p>
+     * <p>El ordenamiento lo resuelve la base de datos mediante {@code ORDER BY}.</p>
      * @param order Puede ser {@code ORDER_BY_NEW_MESSAGES} o {@code ORDER_BY_OLD_MESSAGES}.
      * @param filter Ver la documentación de {@code getMessages} para obtener la información.
      * @param message Ver la documentación de {@code getMessages} para obtener la información.
@@ -229,12 +496,7 @@ public class MessageService {
      * @see #getMessages(int, Message)
      */
     public List<Message> sortedMessages(String order, int filter, Message message) {
-        var messages = this.getMessages(filter, message);
-
-        if (order.equals(BlogConstants.ORDER_BY_NEW_MESSAGES)) {
-            Collections.reverse(messages);
-        }
-
-        return messages;
+        var messages = this.getMessages(filter, message, order);
+        return messages != null ? messages : new ArrayList<>();
     }
 }
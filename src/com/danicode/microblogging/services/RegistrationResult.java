@@ -0,0 +1,26 @@
+package com.danicode.microblogging.services;
+
+/**
+ * Resultado de registrar un nuevo usuario mediante {@code UserService.registerNewUser}.
+ */
+public enum RegistrationResult {
+    /** El usuario fue insertado. */
+    REGISTERED("¡Usuario registrado con éxito!"),
+    /** Ya existe un usuario con el mismo correo electrónico. */
+    EMAIL_TAKEN("El correo electrónico ya se encuentra registrado"),
+    /** Ya existe un usuario con el mismo nombre de usuario, sin importar mayúsculas. */
+    USERNAME_TAKEN("El nombre de usuario ya se encuentra registrado"),
+    /** No fue posible insertar al usuario por algún otro error. */
+    ERROR("No fue posible conectar con la base de datos");
+
+    private final String description;
+
+    RegistrationResult(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return Devuelve un mensaje para mostrar al usuario.
+     */
+    public String getDescription() { return this.description; }
+}
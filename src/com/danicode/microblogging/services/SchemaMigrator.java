@@ -0,0 +1,323 @@
+package com.danicode.microblogging.services;
+
+import com.danicode.microblogging.model.dao.implementations.QueryPlans;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.JDBCType;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Aplica las migraciones del esquema que se encuentran en {@code db/migration}, en el orden de
+ * {@code db/migration/migrations.txt}, y registra cada versión aplicada en la tabla {@code schema_version}.
+ * <p>{@code ConnectionService} lo ejecuta al crear el pool si {@code db.migrate} es {@code true}. También puede
+ * ejecutarse desde la línea de comandos: {@code SchemaMigrator [migrate|status|explain]}.</p>
+ * <p>Si un motor necesita otra versión de una migración, se busca primero en {@code db/migration/<motor>/}.</p>
+ * <p>Las bases de datos creadas antes de existir {@code schema_version} pueden tener aplicadas a mano algunas
+ * migraciones. Cada migración indica con líneas {@code -- @baseline} qué objetos deja creados:
+ * {@code table <tabla>}, {@code column <tabla>.<columna> [tipo JDBC]} o {@code index <tabla>.<índice>}. Si
+ * {@code schema_version} está vacía pero la tabla {@code users} ya existe, las migraciones cuyos objetos existen se
+ * registran sin ejecutarse ({@code baseline}) y sólo se aplican las demás.</p>
+ */
+public final class SchemaMigrator {
+    private static final String DIRECTORY = "/db/migration/";
+    private static final String BASELINE = "baseline";
+    private static final String INDEX = DIRECTORY + "migrations.txt";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String
+        SQL_CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL, " +
+                "description VARCHAR(200) NOT NULL, applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "PRIMARY KEY (version));",
+        SQL_SELECT_APPLIED = "SELECT version FROM schema_version;",
+        SQL_INSERT_APPLIED = "INSERT INTO schema_version(version, description) VALUES(?, ?);";
+
+    private SchemaMigrator() { }
+
+    /**
+     * Una migración del esquema.
+     */
+    public static final class Migration {
+        private final int version;
+        private final String description;
+        private final String fileName;
+
+        private Migration(int version, String description, String fileName) {
+            this.version = version;
+            this.description = description;
+            this.fileName = fileName;
+        }
+
+        public int getVersion() { return this.version; }
+
+        public String getDescription() { return this.description; }
+
+        public String getFileName() { return this.fileName; }
+
+        /**
+         * @param backend Motor de base de datos.
+         * @return Devuelve la ruta del archivo a ejecutar en ese motor.
+         */
+        private String resource(StorageBackend backend) {
+            var specific = DIRECTORY + backend.name().toLowerCase(Locale.ROOT) + "/" + this.fileName;
+            return SchemaMigrator.class.getResource(specific) != null ? specific : DIRECTORY + this.fileName;
+        }
+
+        @Override
+        public String toString() {
+            return "V" + this.version + " " + this.description;
+        }
+    }
+
+    /**
+     * @return Devuelve todas las migraciones, en orden de aplicación.
+     * @throws SQLException Si no se pudo leer el índice de migraciones o algún nombre no es válido.
+     */
+    public static List<Migration> migrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        var in = SchemaMigrator.class.getResourceAsStream(INDEX);
+        if (in == null) {
+            throw new SQLException("No se encontró el índice de migraciones " + INDEX);
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                var matcher = FILE_NAME.matcher(line);
+                if (!matcher.matches()) {
+                    throw new SQLException("Nombre de migración no válido: " + line);
+                }
+                migrations.add(new Migration(Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '), line));
+            }
+        } catch (IOException ex) {
+            throw new SQLException("No se pudo leer el índice de migraciones", ex);
+        }
+        return migrations;
+    }
+
+    /**
+     * @param conn Conexión a la base de datos.
+     * @return Devuelve las migraciones que aún no se aplican.
+     * @throws SQLException Si no se pudo consultar la tabla {@code schema_version}.
+     */
+    public static List<Migration> pending(Connection conn) throws SQLException {
+        var applied = applied(conn);
+        List<Migration> pending = new ArrayList<>();
+        for (var migration : migrations()) {
+            if (!applied.contains(migration.getVersion())) {
+                pending.add(migration);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Aplica las migraciones pendientes. Cada una se confirma por separado junto con su registro en
+     * {@code schema_version}.
+     * <p>MySQL confirma implícitamente cada sentencia DDL, así que si una migración falla a la mitad hay que revisar
+     * el esquema a mano antes de volver a intentarlo.</p>
+     * <p>Antes, si hace falta, registra las migraciones que ya estaban aplicadas mediante {@code baseline}.</p>
+     * @param conn Conexión a la base de datos. Se deja con autocommit desactivado.
+     * @param backend Motor de base de datos, para elegir la versión de cada migración.
+     * @return Devuelve las migraciones aplicadas.
+     * @throws SQLException Si alguna migración falla. Las anteriores quedan aplicadas.
+     */
+    public static List<Migration> migrate(Connection conn, StorageBackend backend) throws SQLException {
+        baseline(conn, backend);
+        var pending = pending(conn);
+        conn.setAutoCommit(false);
+        for (var migration : pending) {
+            try {
+                SqlScript.run(conn, migration.resource(backend));
+                try (var stmt = conn.prepareStatement(SQL_INSERT_APPLIED)) {
+                    stmt.setInt(1, migration.getVersion());
+                    stmt.setString(2, migration.getDescription());
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw new SQLException("Falló la migración " + migration, ex);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Registra sin ejecutarlas las migraciones que ya estaban aplicadas en una base de datos creada antes de existir
+     * {@code schema_version}. No hace nada si ya hay versiones registradas o si la base de datos está vacía.
+     * <p>Se registran las migraciones, desde la primera, cuyos objetos {@code -- @baseline} existen todos. A partir
+     * de la primera que falte, las demás quedan pendientes.</p>
+     * @param conn Conexión a la base de datos. Se deja con autocommit desactivado.
+     * @param backend Motor de base de datos, para elegir la versión de cada migración.
+     * @return Devuelve las migraciones registradas.
+     * @throws SQLException Si una migración posterior a la primera que falta ya está aplicada: el esquema quedó en un
+     * estado intermedio y hay que revisarlo a mano.
+     */
+    public static List<Migration> baseline(Connection conn, StorageBackend backend) throws SQLException {
+        List<Migration> existing = new ArrayList<>();
+        if (!applied(conn).isEmpty() || !exists(conn, "table users")) {
+            return existing;
+        }
+
+        Migration missing = null;
+        for (var migration : migrations()) {
+            var objects = SqlScript.directives(migration.resource(backend), BASELINE);
+            var present = !objects.isEmpty();
+            for (var object : objects) {
+                present = present && exists(conn, object);
+            }
+
+            if (!present) {
+                missing = missing == null ? migration : missing;
+            } else if (missing != null) {
+                throw new SQLException("El esquema tiene " + migration + " pero no " + missing +
+                        ", hay que revisarlo a mano antes de migrar");
+            } else {
+                existing.add(migration);
+            }
+        }
+
+        conn.setAutoCommit(false);
+        try (var stmt = conn.prepareStatement(SQL_INSERT_APPLIED)) {
+            for (var migration : existing) {
+                stmt.setInt(1, migration.getVersion());
+                stmt.setString(2, migration.getDescription());
+                stmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        }
+        return existing;
+    }
+
+    /**
+     * @param conn Conexión a la base de datos.
+     * @param object Objeto tal como se escribe en {@code -- @baseline}, por ejemplo {@code index users.ux_users_email}.
+     * @return Devuelve true si el objeto existe, y si se indicó un tipo de columna, si la columna tiene ese tipo.
+     * @throws SQLException Si la descripción del objeto no es válida.
+     */
+    private static boolean exists(Connection conn, String object) throws SQLException {
+        var parts = object.split("\\s+");
+        var name = parts.length > 1 ? parts[1].split("\\.") : new String[0];
+        var meta = conn.getMetaData();
+        var catalog = conn.getCatalog();
+        var schema = conn.getSchema();
+
+        if (parts[0].equals("table") && name.length == 1) {
+            try (var rs = meta.getTables(catalog, schema, name[0], null)) {
+                return rs.next();
+            }
+        }
+        if (parts[0].equals("column") && name.length == 2) {
+            try (var rs = meta.getColumns(catalog, schema, name[0], name[1])) {
+                return rs.next() && (parts.length < 3 ||
+                        rs.getInt("DATA_TYPE") == JDBCType.valueOf(parts[2]).getVendorTypeNumber());
+            }
+        }
+        if (parts[0].equals("index") && name.length == 2) {
+            try (var rs = meta.getIndexInfo(catalog, schema, name[0], false, true)) {
+                while (rs.next()) {
+                    if (name[1].equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        throw new SQLException("Objeto de baseline no válido: " + object);
+    }
+
+    private static Set<Integer> applied(Connection conn) throws SQLException {
+        Set<Integer> applied = new HashSet<>();
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(SQL_CREATE_HISTORY);
+            try (var rs = stmt.executeQuery(SQL_SELECT_APPLIED)) {
+                while (rs.next()) {
+                    applied.add(rs.getInt(1));
+                }
+            }
+        }
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+        return applied;
+    }
+
+    /**
+     * Revisa los planes de las consultas con {@code QueryPlans} y muestra el resultado.
+     * @return Devuelve el código de salida: {@code 1} si alguna consulta recorre una tabla completa, si no, {@code 0}.
+     */
+    private static int explain(Connection conn, StorageBackend backend) throws SQLException {
+        if (backend != StorageBackend.MYSQL) {
+            System.out.println("La revisión con EXPLAIN sólo se hace con MySQL");
+            return 0;
+        }
+        var problems = QueryPlans.check(conn, backend);
+        problems.forEach(System.out::println);
+        System.out.println(problems.isEmpty() ? "Todas las consultas usan índices" :
+                problems.size() + " consulta(s) recorren una tabla completa");
+        return problems.isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Línea de comandos, usa la misma configuración que la aplicación.
+     * <ul>
+     *     <li>{@code migrate}: aplica las migraciones pendientes (por defecto) y después hace la misma revisión que
+     *     {@code explain}.</li>
+     *     <li>{@code status}: muestra las migraciones pendientes sin aplicarlas.</li>
+     *     <li>{@code explain}: revisa con {@code EXPLAIN} que las consultas de los DAOs usen índices; termina con
+     *     código 1 si alguna recorre una tabla completa.</li>
+     * </ul>
+     */
+    public static void main(String... args) throws Exception {
+        var command = args.length > 0 ? args[0] : "migrate";
+        System.setProperty("db.migrate", "false");
+        var exitCode = 0;
+
+        try (var conn = ConnectionService.getConnection()) {
+            var backend = ConnectionService.getBackend();
+            switch (command) {
+                case "status" -> {
+                    var pending = pending(conn);
+                    System.out.println(pending.isEmpty() ? "El esquema está al día" : "Migraciones pendientes:");
+                    pending.forEach(migration -> System.out.println("  " + migration));
+                }
+                case "explain" -> exitCode = explain(conn, backend);
+                case "migrate" -> {
+                    var existing = baseline(conn, backend);
+                    if (!existing.isEmpty()) {
+                        System.out.println("Migraciones que ya estaban aplicadas, registradas sin ejecutar:");
+                        existing.forEach(migration -> System.out.println("  " + migration));
+                    }
+                    var applied = migrate(conn, backend);
+                    System.out.println(applied.isEmpty() ? "El esquema está al día" : "Migraciones aplicadas:");
+                    applied.forEach(migration -> System.out.println("  " + migration));
+                    exitCode = explain(conn, backend);
+                }
+                default -> {
+                    System.out.println("Uso: SchemaMigrator [migrate|status|explain]");
+                    exitCode = 2;
+                }
+            }
+        } finally {
+            ConnectionService.shutdown();
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,129 @@
+package com.danicode.microblogging.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ejecuta archivos SQL incluidos en el classpath.
+ * <p>Las sentencias se separan por un {@code ;} al final de la línea y las líneas que empiezan con {@code --} se
+ * ignoran. No admite procedimientos almacenados ni cadenas con {@code ;} al final de una línea.</p>
+ * <p>Una consulta precedida por la línea {@code -- @check <mensaje>} es una comprobación: si devuelve alguna fila, el
+ * script se detiene con ese mensaje y los valores de la primera fila.</p>
+ * <p>Otras líneas {@code -- @<nombre> ...} son directivas para quien lee el archivo, por ejemplo {@code SchemaMigrator};
+ * al ejecutarlo se ignoran como cualquier comentario.</p>
+ */
+public final class SqlScript {
+    private static final String CHECK = "-- @check";
+
+    private SqlScript() { }
+
+    /**
+     * Ejecuta todas las sentencias del archivo con la conexión indicada. No hace commit.
+     * @param conn Conexión a utilizar.
+     * @param resource Ruta del archivo en el classpath, por ejemplo {@code /db/h2/seed.sql}.
+     * @throws SQLException Si alguna sentencia falla o no se encuentra el archivo.
+     */
+    public static void run(Connection conn, String resource) throws SQLException {
+        try (var stmt = conn.createStatement()) {
+            for (var sql : statements(resource)) {
+                if (sql.startsWith(CHECK)) {
+                    check(stmt, sql);
+                } else {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una comprobación y falla si la consulta devuelve alguna fila.
+     * @param stmt Sentencia con la que se ejecuta la consulta.
+     * @param sql Comprobación tal como la devuelve {@code statements}: la línea {@code -- @check} y la consulta.
+     * @throws SQLException Si la consulta devuelve alguna fila o no se pudo ejecutar.
+     */
+    private static void check(Statement stmt, String sql) throws SQLException {
+        var lineEnd = sql.indexOf('\n');
+        var message = sql.substring(CHECK.length(), lineEnd < 0 ? sql.length() : lineEnd).strip();
+        if (lineEnd < 0) {
+            throw new SQLException("Comprobación sin consulta: " + message);
+        }
+
+        try (var rs = stmt.executeQuery(sql.substring(lineEnd + 1))) {
+            if (rs.next()) {
+                var columns = rs.getMetaData();
+                var row = new StringBuilder();
+                for (var i = 1; i <= columns.getColumnCount(); i ++) {
+                    row.append(i > 1 ? ", " : "").append(columns.getColumnLabel(i)).append('=').append(rs.getString(i));
+                }
+                throw new SQLException(message + " (" + row + ")");
+            }
+        }
+    }
+
+    /**
+     * @param resource Ruta del archivo en el classpath.
+     * @return Devuelve las sentencias del archivo, sin comentarios y sin el {@code ;} final. Las comprobaciones
+     * conservan su línea {@code -- @check} al principio.
+     * @throws SQLException Si no se encuentra el archivo.
+     */
+    public static List<String> statements(String resource) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        var current = new StringBuilder();
+        for (var line : read(resource).split("\\R")) {
+            var trimmed = line.strip();
+            if (trimmed.startsWith(CHECK)) {
+                current.setLength(0);
+                current.append(trimmed);
+                continue;
+            }
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(current.length() > 0 ? "\n" : "").append(line);
+            if (trimmed.endsWith(";")) {
+                current.setLength(current.lastIndexOf(";"));
+                statements.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    /**
+     * @param resource Ruta del archivo en el classpath.
+     * @param name Nombre de la directiva, sin {@code @}.
+     * @return Devuelve lo que sigue a cada línea {@code -- @<name>} del archivo, en orden.
+     * @throws SQLException Si no se encuentra el archivo.
+     */
+    public static List<String> directives(String resource, String name) throws SQLException {
+        var prefix = "-- @" + name + " ";
+        List<String> directives = new ArrayList<>();
+        for (var line : read(resource).split("\\R")) {
+            var trimmed = line.strip();
+            if (trimmed.startsWith(prefix)) {
+                directives.add(trimmed.substring(prefix.length()).strip());
+            }
+        }
+        return directives;
+    }
+
+    private static String read(String resource) throws SQLException {
+        try (InputStream in = SqlScript.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new SQLException("No se encontró el script " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new SQLException("No se pudo leer el script " + resource, ex);
+        }
+    }
+}
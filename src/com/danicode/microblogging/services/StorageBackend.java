@@ -0,0 +1,98 @@
+package com.danicode.microblogging.services;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Motores de base de datos que puede usar {@code ConnectionService}, elegidos con la propiedad {@code db.backend}.
+ * <p>Cada motor tiene su propia URL, driver y credenciales por defecto. Pueden cambiarse con
+ * {@code db.<motor>.url}, {@code db.<motor>.username}, etc., o con {@code db.url}, {@code db.username}, etc. para
+ * cualquier motor.</p>
+ */
+public enum StorageBackend {
+    /** Servidor MySQL, el motor de la aplicación. */
+    MYSQL("jdbc:mysql://localhost:3306/microblogging", "com.mysql.cj.jdbc.Driver", "root", "admin", true, null),
+    /**
+     * H2 embebido en modo MySQL, sin servidor. Por defecto vive en memoria y al crearse aplica las migraciones y
+     * carga unos datos de ejemplo, útil para pruebas, benchmarks y demostraciones sin conexión.
+     */
+    H2("jdbc:h2:mem:microblogging;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "org.h2.Driver", "sa", "",
+            false, "/db/h2/seed.sql");
+
+    private final String url, driver, username, password;
+    private final boolean fullText;
+    private final String seedScript;
+
+    StorageBackend(String url, String driver, String username, String password, boolean fullText,
+                   String seedScript) {
+        this.url = url;
+        this.driver = driver;
+        this.username = username;
+        this.password = password;
+        this.fullText = fullText;
+        this.seedScript = seedScript;
+    }
+
+    /**
+     * @param name Nombre del motor, sin importar mayúsculas. Puede ser {@code null}.
+     * @return Devuelve el motor indicado, o {@code MYSQL} si no se reconoce.
+     */
+    public static StorageBackend from(String name) {
+        return name != null && name.strip().equalsIgnoreCase(H2.name()) ? H2 : MYSQL;
+    }
+
+    /**
+     * Busca un valor de la configuración propio del motor y, si no existe, el valor común.
+     * @param properties Configuración de la base de datos.
+     * @param key Nombre del valor, sin el prefijo {@code db.}, por ejemplo {@code url}.
+     * @param defaultValue Valor por defecto.
+     * @return Devuelve {@code db.<motor>.<key>}, {@code db.<key>} o el valor por defecto, en ese orden.
+     */
+    private String get(Properties properties, String key, String defaultValue) {
+        var value = properties.getProperty("db." + this.name().toLowerCase(Locale.ROOT) + "." + key);
+        return value != null ? value : properties.getProperty("db." + key, defaultValue);
+    }
+
+    public String getUrl(Properties properties) { return this.get(properties, "url", this.url); }
+
+    public String getDriver(Properties properties) { return this.get(properties, "driver", this.driver); }
+
+    public String getUsername(Properties properties) { return this.get(properties, "username", this.username); }
+
+    public String getPassword(Properties properties) { return this.get(properties, "password", this.password); }
+
+    /**
+     * @return Devuelve true si el motor tiene índices FULLTEXT con {@code MATCH ... AGAINST}. Si no, las búsquedas
+     * de texto usan {@code LIKE}.
+     */
+    public boolean supportsFullText() { return this.fullText; }
+
+    /**
+     * Aplica las migraciones pendientes mediante {@code SchemaMigrator}, salvo que {@code db.migrate} sea
+     * {@code false}. Si la base de datos estaba vacía y el motor tiene datos de ejemplo, también los carga, salvo que
+     * {@code db.<motor>.seed} sea {@code false}.
+     * @param source Pool de conexiones del motor.
+     * @param properties Configuración de la base de datos.
+     * @throws SQLException Si alguna migración falla.
+     */
+    public void initialize(DataSource source, Properties properties) throws SQLException {
+        if (!Boolean.parseBoolean(this.get(properties, "migrate", "true"))) {
+            return;
+        }
+
+        try (var conn = source.getConnection()) {
+            boolean created;
+            try (var tables = conn.getMetaData().getTables(conn.getCatalog(), conn.getSchema(), "users", null)) {
+                created = !tables.next();
+            }
+
+            SchemaMigrator.migrate(conn, this);
+            if (created && this.seedScript != null && Boolean.parseBoolean(this.get(properties, "seed", "true"))) {
+                SqlScript.run(conn, this.seedScript);
+                conn.commit();
+            }
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.danicode.microblogging.services;
 
+import com.danicode.microblogging.model.dao.implementations.CachedDAOUser;
+import com.danicode.microblogging.model.dao.implementations.DAOMessageImpl;
 import com.danicode.microblogging.model.dao.implementations.DAOUserImpl;
-import com.danicode.microblogging.model.dao.templates.DAOUser;
+import com.danicode.microblogging.model.dao.implementations.DAOUserStatsImpl;
 import com.danicode.microblogging.model.domain.User;
+import com.danicode.microblogging.model.domain.UserStats;
+import com.danicode.microblogging.services.search.MessageIndex;
 
 import java.sql.Connection;
+import java.sql.SQLIntegrityConstraintViolationException;
 
 import static com.danicode.microblogging.services.ConnectionService.getConnection;
 
@@ -12,123 +17,72 @@ import static com.danicode.microblogging.services.ConnectionService.getConnectio
  * Esta clase se encarga de gestionar el manejo de usuarios y de la base de datos.
  */
 public class UserService {
-    private Connection conn;
-    private DAOUser userDao;
-    private static User userLogged = null;
+    private static final String EMAIL_INDEX = "ux_users_email";
+    private static final String USERNAME_INDEX = "ux_users_username_key";
+    private static volatile User userLogged = null;
 
     /**
-     * Verifica si el usuario fue encontrado según el email o el username.
-     * @param user Usuario a consultar.
-     * @return Devuelve true si el usuario fue encontrado.
-     */
-    public boolean isUserRegistered(User user) {
-        boolean isRegistered = false;
-        try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.userDao = new DAOUserImpl(this.conn);
-
-            isRegistered = this.userDao.findByEmail(user.getEmail()) != null ||
-                    this.userDao.findByUsername(user.getUsername()) != null;
-
-            this.conn.commit();
-            this.conn.close();
-        } catch (Exception ex) {
-            ex.printStackTrace(System.out);
-            try {
-                if (this.conn != null) {
-                    this.conn.rollback();
-                }
-            } catch (Exception ex1) {
-                ex1.printStackTrace(System.out);
-            }
-        }
-        return isRegistered;
-    }
-
-    /**
-     * Registra un nuevo a la base de datos si éste no existe según {@code isUserRegistered}.
+     * Registra un nuevo usuario a la base de datos con un solo {@code INSERT}.
+     * <p>No consulta antes si el usuario existe: los índices únicos del email y del nombre de usuario rechazan los
+     * duplicados, así dos registros simultáneos no pueden crear al mismo usuario.</p>
      * @param user Usuario a registrar
-     * @return Devuelve true si el usuario fue insertado a la base de datos.
+     * @return Devuelve {@code REGISTERED} si el usuario fue insertado, {@code EMAIL_TAKEN} o {@code USERNAME_TAKEN}
+     * si alguno de esos datos ya está registrado, o {@code ERROR} si ocurre otro error.
      */
-    public boolean registerNewUser(User user) {
-        var register = false;
-        if (!this.isUserRegistered(user)) {
-            try {
-                this.conn = getConnection();
-                this.conn.setAutoCommit(false);
-                this.userDao = new DAOUserImpl(this.conn);
-
-                register = this.userDao.create(user) != 0;
-
-                this.conn.commit();
-                this.conn.close();
-            } catch (Exception ex) {
+    public RegistrationResult registerNewUser(User user) {
+        var result = RegistrationResult.ERROR;
+        try (var conn = getConnection()) {
+            var userDao = new CachedDAOUser(new DAOUserImpl(conn));
+            if (userDao.create(user) != 0) {
+                result = RegistrationResult.REGISTERED;
+            }
+        } catch (SQLIntegrityConstraintViolationException ex) {
+            var detail = String.valueOf(ex.getMessage());
+            if (detail.contains(EMAIL_INDEX)) {
+                result = RegistrationResult.EMAIL_TAKEN;
+            } else if (detail.contains(USERNAME_INDEX)) {
+                result = RegistrationResult.USERNAME_TAKEN;
+            } else {
                 ex.printStackTrace(System.out);
-                try {
-                    if (this.conn != null) {
-                        this.conn.rollback();
-                    }
-                } catch (Exception ex1) {
-                    ex1.printStackTrace(System.out);
-                }
             }
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
         }
-        return register;
+        return result;
     }
 
     /**
      * Establece al usuario logueado si no hay otro usuario logueado y los datos están correctos.
-     * @param userToLog Usuario a loguearse.
+     * <p>Se resuelve con una sola consulta que busca al usuario por email o por nombre de usuario.</p>
+     * @param userToLog Usuario a loguearse. Su username se usa como email o nombre de usuario.
      * @return Devuelve true si la operación fue exitosa.
      */
     public boolean setUserLogged(User userToLog) {
         if (userLogged == null) {
-            try {
-                if (this.isUserRegistered(userToLog)) {
-                    this.conn = getConnection();
-                    this.conn.setAutoCommit(false);
-                    this.userDao = new DAOUserImpl(this.conn);
-
-                    var userByEmail = this.userDao.findByEmail(userToLog.getEmail());
-                    var userByUsername = this.userDao.findByUsername(userToLog.getUsername());
-
-                    if (this.isDataCorrect(userToLog, userByEmail)) {
-                        userLogged = userByEmail;
-                    }
-                    else if (this.isDataCorrect(userToLog, userByUsername)) {
-                        userLogged = userByUsername;
-                    }
-
-                    this.conn.commit();
-                    this.conn.close();
-                }
-            } catch (Exception ex) {
-                ex.printStackTrace(System.out);
-                try {
-                    if (this.conn != null) {
-                        this.conn.rollback();
-                    }
-                } catch (Exception ex1) {
-                    ex1.printStackTrace(System.out);
-                }
+            var user = this.authenticate(userToLog.getUsername(), userToLog.getPassword());
+            if (user != null) {
+                userLogged = user;
             }
         }
-
         return userLogged != null;
     }
 
     /**
-     * Comparara los datos entre el usuario a loguearse y el usuario registrado en la base de datos.
-     * @param userToLog Usuario a loguearse.
-     * @param userToCompare Usuario registrado en la base de datos, puede ser según el email o el username.
-     * @return Devuelve true si la contraseña de ambos usuarios coinciden.
+     * Busca al usuario cuyo email o nombre de usuario coincida y cuya contraseña sea correcta.
+     * <p>Como sólo hace una lectura, no abre una transacción.</p>
+     * @param identifier Email o nombre de usuario.
+     * @param secret Contraseña.
+     * @return Devuelve al usuario autenticado, o {@code null} si los datos no coinciden o hubo algún error.
      */
-    private boolean isDataCorrect(User userToLog, User userToCompare) {
-        if (userToCompare != null) {
-            return userToCompare.getPassword().equals(userToLog.getPassword());
+    public User authenticate(String identifier, String secret) {
+        User user = null;
+        try (var conn = getConnection()) {
+            var userDao = new CachedDAOUser(new DAOUserImpl(conn));
+            user = userDao.authenticate(identifier, secret);
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
         }
-        return false;
+        return user;
     }
 
     /**
@@ -137,21 +91,22 @@ public class UserService {
      * @return Devuelve {@code null} si no se encuentra, de lo contrario, devuelve al usuario con todos sus atributos.
      */
     public User getUser(String username) {
+        Connection conn = null;
         User user = null;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.userDao = new DAOUserImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var userDao = new CachedDAOUser(new DAOUserImpl(conn));
 
-            user = this.userDao.findByUsername(username);
+            user = userDao.findByUsername(username);
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -169,21 +124,23 @@ public class UserService {
      * @return Devuelve true si la operación fue exitosa.
      */
     public boolean updateUser(User user) {
+        Connection conn = null;
         var updated = false;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.userDao = new DAOUserImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var userDao = new CachedDAOUser(new DAOUserImpl(conn));
 
-            updated = this.userDao.update(user) != 0;
+            updated = userDao.update(user) != 0;
 
-            this.conn.commit();
-            this.conn.close();
+            conn.commit();
+            conn.close();
+            CachedDAOUser.invalidate(user.getIdUser());
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -198,21 +155,65 @@ public class UserService {
      * @return Devuelve true si la operación fue exitosa.
      */
     public boolean deleteUser(int idUser) {
+        Connection conn = null;
         var deleted = false;
         try {
-            this.conn = getConnection();
-            this.conn.setAutoCommit(false);
-            this.userDao = new DAOUserImpl(this.conn);
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var userDao = new CachedDAOUser(new DAOUserImpl(conn));
+
+            deleted = userDao.delete(idUser) != 0;
+
+            conn.commit();
+            conn.close();
+            CachedDAOUser.invalidate(idUser);
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (Exception ex1) {
+                ex1.printStackTrace(System.out);
+            }
+        }
+        return deleted;
+    }
 
-            deleted = this.userDao.delete(idUser) != 0;
+    /**
+     * Borra a un usuario junto con todos sus mensajes, en una sola transacción y con una sola conexión.
+     * <p>Los mensajes se borran con un solo {@code DELETE} por usuario, sin leerlos antes. Si el índice de búsqueda en
+     * memoria está activo, sólo se leen los ids de los mensajes para quitarlos del índice.</p>
+     * @param idUser Id del usuario a borrar.
+     * @return Devuelve true si el usuario fue borrado.
+     */
+    public boolean deleteUserCascade(int idUser) {
+        Connection conn = null;
+        var deleted = false;
+        int[] ids = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            var userDao = new CachedDAOUser(new DAOUserImpl(conn));
+            var messageDao = new DAOMessageImpl(conn);
 
-            this.conn.commit();
-            this.conn.close();
+            if (MessageIndex.isEnabled()) {
+                ids = messageDao.findIdsByUser(idUser);
+            }
+            messageDao.deleteUserMessages(idUser);
+            deleted = userDao.delete(idUser) != 0;
+
+            conn.commit();
+            conn.close();
+            CachedDAOUser.invalidate(idUser);
+            if (deleted && ids != null) {
+                MessageIndex.onDeletedAll(ids);
+            }
         } catch (Exception ex) {
             ex.printStackTrace(System.out);
             try {
-                if (this.conn != null) {
-                    this.conn.rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (Exception ex1) {
                 ex1.printStackTrace(System.out);
@@ -221,6 +222,23 @@ public class UserService {
         return deleted;
     }
 
+    /**
+     * Obtiene las estadísticas de publicación de un usuario con una sola búsqueda por llave primaria.
+     * @param idUser Id del usuario.
+     * @return Devuelve las estadísticas, en cero si el usuario aún no publica nada, o {@code null} si ocurre algún
+     * error.
+     */
+    public UserStats getUserStats(int idUser) {
+        UserStats stats = null;
+        try (var conn = getConnection()) {
+            var statsDao = new DAOUserStatsImpl(conn);
+            stats = statsDao.findById(idUser);
+        } catch (Exception ex) {
+            ex.printStackTrace(System.out);
+        }
+        return stats;
+    }
+
     /**
      * @return Devuelve al usuario logueado. Si no hay usuario logueado, devuelve {@code null}.
      */
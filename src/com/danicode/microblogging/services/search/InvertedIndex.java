@@ -0,0 +1,284 @@
+package com.danicode.microblogging.services.search;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria: para cada palabra guarda los ids de los mensajes que la contienen.
+ * <p>Las palabras se obtienen con {@code SpanishTokenizer} y los ids se guardan comprimidos en {@code PostingList}.
+ * Varias búsquedas pueden leer el índice a la vez; las altas, ediciones y bajas lo bloquean por un momento.</p>
+ * <p>Los mensajes borrados sin conocer su contenido ({@code removeAll}) se anotan en una lista de ids borrados que
+ * las búsquedas descartan; cuando crece, se quitan de todas las listas en una sola pasada.</p>
+ */
+public class InvertedIndex {
+    private static final int MAX_DELETED = 10_000;
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] deleted = new int[0];
+
+    /**
+     * Agrega las palabras de un mensaje al índice.
+     * @param idMessage Id del mensaje.
+     * @param text Contenido del mensaje.
+     */
+    public void add(int idMessage, String text) {
+        var tokens = SpanishTokenizer.tokenize(text);
+        this.lock.writeLock().lock();
+        try {
+            if (Arrays.binarySearch(this.deleted, idMessage) >= 0) {
+                this.purge();
+            }
+            for (var token : tokens) {
+                this.postings.computeIfAbsent(token, key -> new PostingList()).add(idMessage);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita las palabras de un mensaje del índice.
+     * @param idMessage Id del mensaje.
+     * @param text Contenido que tenía el mensaje al indexarse.
+     */
+    public void remove(int idMessage, String text) {
+        var tokens = SpanishTokenizer.tokenize(text);
+        this.lock.writeLock().lock();
+        try {
+            for (var token : tokens) {
+                var list = this.postings.get(token);
+                if (list != null) {
+                    list.remove(idMessage);
+                    if (list.isEmpty()) {
+                        this.postings.remove(token);
+                    }
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita varios mensajes del índice sin necesidad de conocer su contenido.
+     * @param idMessages Ids de los mensajes, en cualquier orden.
+     */
+    public void removeAll(int[] idMessages) {
+        if (idMessages.length == 0) {
+            return;
+        }
+
+        var ids = idMessages.clone();
+        Arrays.sort(ids);
+        this.lock.writeLock().lock();
+        try {
+            this.deleted = union(this.deleted, distinct(ids));
+            if (this.deleted.length > MAX_DELETED) {
+                this.purge();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza el contenido indexado de un mensaje.
+     * @param idMessage Id del mensaje.
+     * @param oldText Contenido anterior.
+     * @param newText Contenido nuevo.
+     */
+    public void update(int idMessage, String oldText, String newText) {
+        this.remove(idMessage, oldText);
+        this.add(idMessage, newText);
+    }
+
+    /**
+     * Busca los mensajes que contienen todas las palabras del texto, completas o como prefijo.
+     * @param text Texto a buscar.
+     * @param cursor Id del último mensaje de la página anterior, o {@code 0} para la primera página.
+     * @param limit Cantidad máxima de ids a devolver.
+     * @param newestFirst true para devolver primero los ids más grandes (mensajes más recientes).
+     * @return Devuelve los ids encontrados en el orden indicado, o {@code null} si el texto no tiene ninguna
+     * palabra indexable y la búsqueda debe resolverse de otra forma.
+     */
+    public int[] search(String text, int cursor, int limit, boolean newestFirst) {
+        var tokens = SpanishTokenizer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        int[] matches = null;
+        this.lock.readLock().lock();
+        try {
+            for (var token : tokens) {
+                var ids = this.prefixUnion(token);
+                matches = matches == null ? ids : intersect(matches, ids);
+                if (matches.length == 0) {
+                    return matches;
+                }
+            }
+            matches = difference(matches, this.deleted);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return page(matches, cursor, limit, newestFirst);
+    }
+
+    /**
+     * @return Devuelve cuántas palabras distintas hay en el índice, contando las que sólo tienen mensajes borrados
+     * con {@code removeAll} hasta que se quiten en la siguiente pasada.
+     */
+    public int getTermCount() {
+        this.lock.readLock().lock();
+        try {
+            return this.postings.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reduce la memoria de todas las listas, se llama al terminar de cargar el índice.
+     */
+    public void trim() {
+        this.lock.writeLock().lock();
+        try {
+            this.purge();
+            this.postings.values().forEach(PostingList::trim);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita de todas las listas los ids borrados con {@code removeAll}. Se llama con el bloqueo de escritura.
+     */
+    private void purge() {
+        if (this.deleted.length == 0) {
+            return;
+        }
+        var iterator = this.postings.values().iterator();
+        while (iterator.hasNext()) {
+            var list = iterator.next();
+            list.removeAll(this.deleted);
+            if (list.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        this.deleted = new int[0];
+    }
+
+    private int[] prefixUnion(String prefix) {
+        Map<String, PostingList> range = this.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.size() == 1) {
+            return range.values().iterator().next().toArray();
+        }
+
+        var total = 0;
+        for (var list : range.values()) {
+            total += list.size();
+        }
+        var ids = new int[total];
+        var offset = 0;
+        for (var list : range.values()) {
+            var values = list.toArray();
+            System.arraycopy(values, 0, ids, offset, values.length);
+            offset += values.length;
+        }
+        ids = offset == total ? ids : Arrays.copyOf(ids, offset);
+        Arrays.sort(ids);
+        return distinct(ids);
+    }
+
+    private static int[] distinct(int[] sorted) {
+        if (sorted.length == 0) {
+            return sorted;
+        }
+        var size = 1;
+        for (var i = 1; i < sorted.length; i ++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size ++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        var result = new int[Math.min(a.length, b.length)];
+        var size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i ++;
+            } else if (a[i] > b[j]) {
+                j ++;
+            } else {
+                result[size ++] = a[i];
+                i ++;
+                j ++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        var result = new int[a.length + b.length];
+        var size = 0;
+        var i = 0;
+        var j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[size ++] = a[i ++];
+            } else if (a[i] > b[j]) {
+                result[size ++] = b[j ++];
+            } else {
+                result[size ++] = a[i ++];
+                j ++;
+            }
+        }
+        while (i < a.length) {
+            result[size ++] = a[i ++];
+        }
+        while (j < b.length) {
+            result[size ++] = b[j ++];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static int[] difference(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        var result = new int[a.length];
+        var size = 0;
+        for (int i = 0, j = 0; i < a.length; i ++) {
+            while (j < b.length && b[j] < a[i]) {
+                j ++;
+            }
+            if (j >= b.length || b[j] != a[i]) {
+                result[size ++] = a[i];
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static int[] page(int[] sorted, int cursor, int limit, boolean newestFirst) {
+        var result = new int[Math.min(limit, sorted.length)];
+        var size = 0;
+        if (newestFirst) {
+            for (var i = sorted.length - 1; i >= 0 && size < result.length; i --) {
+                if (cursor <= 0 || sorted[i] < cursor) {
+                    result[size ++] = sorted[i];
+                }
+            }
+        } else {
+            for (var i = 0; i < sorted.length && size < result.length; i ++) {
+                if (sorted[i] > cursor) {
+                    result[size ++] = sorted[i];
+                }
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,137 @@
+package com.danicode.microblogging.services.search;
+
+import com.danicode.microblogging.constants.BlogConstants;
+import com.danicode.microblogging.model.dao.implementations.DAOMessageImpl;
+
+import static com.danicode.microblogging.services.ConnectionService.*;
+
+/**
+ * Índice invertido compartido por la aplicación para buscar mensajes sin depender del índice FULLTEXT de MySQL.
+ * <p>Se activa con la propiedad del sistema {@code search.backend=memory}. La primera búsqueda carga todos los
+ * mensajes por páginas; a partir de ahí {@code MessageService} lo mantiene al día al crear, editar y borrar.</p>
+ * <p>El índice sólo devuelve ids: los mensajes se leen después de la base de datos, así que un id de un mensaje
+ * recién borrado simplemente no aparece en el resultado.</p>
+ * <p>Mientras se carga, los cambios esperan a que termine la carga y se aplican sobre el índice completo; los
+ * cambios anteriores a la carga ya están en la base de datos y la carga los lee.</p>
+ * <p>El índice sólo ve los cambios hechos por este proceso. Si otra instancia de la aplicación escribe en la misma
+ * base de datos, sus mensajes no aparecen en la búsqueda hasta reiniciar; en ese caso no se debe activar.</p>
+ */
+public final class MessageIndex {
+    private static final boolean ENABLED = "memory".equalsIgnoreCase(System.getProperty("search.backend"));
+    private static final int BATCH_SIZE = 10_000;
+    private static final Object LOCK = new Object();
+    private static volatile InvertedIndex index = null;
+
+    private MessageIndex() { }
+
+    /**
+     * @return Devuelve true si las búsquedas deben resolverse con el índice en memoria.
+     */
+    public static boolean isEnabled() { return ENABLED; }
+
+    /**
+     * Obtiene el índice, cargándolo desde la base de datos si aún no existe.
+     * @return Devuelve el índice cargado.
+     * @throws Exception Si no se pudieron leer los mensajes.
+     */
+    public static InvertedIndex get() throws Exception {
+        var current = index;
+        if (current == null) {
+            synchronized (LOCK) {
+                current = index;
+                if (current == null) {
+                    current = new InvertedIndex();
+                    load(current);
+                    current.trim();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void load(InvertedIndex target) throws Exception {
+        var conn = getConnection();
+        try {
+            var messageDao = new DAOMessageImpl(conn);
+            var cursor = 0;
+            while (true) {
+                var batch = messageDao.page(cursor, BATCH_SIZE, BlogConstants.LIST_MESSAGES, null,
+                        BlogConstants.ORDER_BY_OLD_MESSAGES);
+                for (var message : batch) {
+                    target.add(message.getIdMessage(), message.getMessage());
+                }
+                if (batch.size() < BATCH_SIZE) {
+                    break;
+                }
+                cursor = batch.get(batch.size() - 1).getIdMessage();
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Si hay una carga en curso, espera a que termine.
+     * @return Devuelve el índice cargado, o {@code null} si no se ha cargado; en ese caso la carga leerá el cambio de
+     * la base de datos.
+     */
+    private static InvertedIndex current() {
+        var current = index;
+        if (current == null) {
+            synchronized (LOCK) {
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Indexa un mensaje recién creado. Si el índice aún no se carga, no hace nada.
+     * @param idMessage Id del mensaje.
+     * @param text Contenido del mensaje.
+     */
+    public static void onCreated(int idMessage, String text) {
+        var current = current();
+        if (current != null) {
+            current.add(idMessage, text);
+        }
+    }
+
+    /**
+     * Actualiza un mensaje editado. Si el índice aún no se carga, no hace nada.
+     * @param idMessage Id del mensaje.
+     * @param oldText Contenido anterior.
+     * @param newText Contenido nuevo.
+     */
+    public static void onEdited(int idMessage, String oldText, String newText) {
+        var current = current();
+        if (current != null) {
+            current.update(idMessage, oldText, newText);
+        }
+    }
+
+    /**
+     * Quita un mensaje borrado. Si el índice aún no se carga, no hace nada.
+     * @param idMessage Id del mensaje.
+     * @param text Contenido que tenía el mensaje.
+     */
+    public static void onDeleted(int idMessage, String text) {
+        var current = current();
+        if (current != null) {
+            current.remove(idMessage, text);
+        }
+    }
+
+    /**
+     * Quita varios mensajes borrados sin necesidad de su contenido, por ejemplo todos los de un usuario. Si el índice
+     * aún no se carga, no hace nada.
+     * @param idMessages Ids de los mensajes borrados.
+     */
+    public static void onDeletedAll(int[] idMessages) {
+        var current = current();
+        if (current != null) {
+            current.removeAll(idMessages);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.danicode.microblogging.services.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista ordenada de ids de mensajes, comprimida con deltas codificados como varint.
+ * <p>Como los ids de los mensajes son autoincrementales, casi siempre se agregan al final y la diferencia con el
+ * anterior ocupa uno o dos bytes. Agregar un id mayor que el último es O(1).</p>
+ * <p>Los ids menores que el último y los eliminados no tocan la parte comprimida: se guardan sin comprimir en dos
+ * arreglos ordenados (agregados y eliminados) que se aplican al leer la lista. Cuando entre los dos superan una
+ * fracción de la lista, se compacta todo de una vez, así el costo de reconstruirla se reparte entre muchas
+ * operaciones.</p>
+ * <p>No es segura para varios hilos, {@code InvertedIndex} se encarga de sincronizar el acceso.</p>
+ */
+final class PostingList {
+    private static final int MIN_PENDING = 16;
+    private static final int MAX_PENDING = 4096;
+    private byte[] data = new byte[4];
+    private int length = 0;
+    private int count = 0;
+    private int last = 0;
+    private final IdBuffer added = new IdBuffer();
+    private final IdBuffer removed = new IdBuffer();
+
+    /**
+     * @param id Id del mensaje. Si ya existe, no se hace nada.
+     */
+    void add(int id) {
+        this.removed.remove(id);
+        if (id > this.last) {
+            this.append(id - this.last);
+            this.last = id;
+            this.count ++;
+            return;
+        }
+
+        this.added.add(id);
+        this.compactIfNeeded();
+    }
+
+    /**
+     * @param id Id del mensaje a eliminar. Si no está en la lista, no se hace nada.
+     */
+    void remove(int id) {
+        this.added.remove(id);
+        if (id <= this.last) {
+            this.removed.add(id);
+            this.compactIfNeeded();
+        }
+    }
+
+    /**
+     * Elimina varios ids a la vez, reconstruyendo la lista una sola vez.
+     * @param sortedIds Ids a eliminar, en orden ascendente.
+     */
+    void removeAll(int[] sortedIds) {
+        var ids = this.toArray();
+        var size = 0;
+        for (int i = 0, j = 0; i < ids.length; i ++) {
+            while (j < sortedIds.length && sortedIds[j] < ids[i]) {
+                j ++;
+            }
+            if (j >= sortedIds.length || sortedIds[j] != ids[i]) {
+                ids[size ++] = ids[i];
+            }
+        }
+        this.rebuild(size == ids.length ? ids : Arrays.copyOf(ids, size));
+    }
+
+    /**
+     * @return Devuelve true si la lista no tiene ningún id. Si los eliminados pendientes podrían cubrir toda la
+     * lista, la compacta para responder con exactitud.
+     */
+    boolean isEmpty() {
+        if (this.added.size == 0 && this.count > 0 && this.removed.size >= this.count) {
+            this.compact();
+        }
+        return this.count == 0 && this.added.size == 0;
+    }
+
+    /**
+     * @return Devuelve la cantidad máxima de ids de la lista; puede contar ids eliminados que aún no se compactan.
+     */
+    int size() { return this.count + this.added.size; }
+
+    /**
+     * @return Devuelve los ids descomprimidos en orden ascendente, ya con los agregados y eliminados pendientes.
+     */
+    int[] toArray() {
+        var ids = new int[this.count + this.added.size];
+        var size = 0;
+        var nextAdded = 0;
+        var nextRemoved = 0;
+        var value = 0;
+        var offset = 0;
+        for (var i = 0; i < this.count; i ++) {
+            var delta = 0;
+            var shift = 0;
+            byte current;
+            do {
+                current = this.data[offset ++];
+                delta |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            value += delta;
+
+            while (nextAdded < this.added.size && this.added.ids[nextAdded] < value) {
+                ids[size ++] = this.added.ids[nextAdded ++];
+            }
+            if (nextAdded < this.added.size && this.added.ids[nextAdded] == value) {
+                nextAdded ++;
+                ids[size ++] = value;
+                continue;
+            }
+            while (nextRemoved < this.removed.size && this.removed.ids[nextRemoved] < value) {
+                nextRemoved ++;
+            }
+            if (nextRemoved >= this.removed.size || this.removed.ids[nextRemoved] != value) {
+                ids[size ++] = value;
+            }
+        }
+        while (nextAdded < this.added.size) {
+            ids[size ++] = this.added.ids[nextAdded ++];
+        }
+        return size == ids.length ? ids : Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Aplica los cambios pendientes y reduce el arreglo interno al tamaño usado, útil después de cargar el índice
+     * completo.
+     */
+    void trim() {
+        if (this.added.size > 0 || this.removed.size > 0) {
+            this.compact();
+        }
+        if (this.data.length > this.length) {
+            this.data = Arrays.copyOf(this.data, this.length);
+        }
+        this.added.clear();
+        this.removed.clear();
+    }
+
+    private void compactIfNeeded() {
+        var limit = Math.min(MAX_PENDING, Math.max(MIN_PENDING, this.count >> 3));
+        if (this.added.size + this.removed.size > limit) {
+            this.compact();
+        }
+    }
+
+    private void compact() {
+        this.rebuild(this.toArray());
+    }
+
+    private void rebuild(int[] ids) {
+        this.data = new byte[Math.max(4, ids.length * 2)];
+        this.length = 0;
+        this.count = ids.length;
+        this.last = 0;
+        this.added.size = 0;
+        this.removed.size = 0;
+        for (var id : ids) {
+            this.append(id - this.last);
+            this.last = id;
+        }
+    }
+
+    private void append(int delta) {
+        if (this.length + 5 > this.data.length) {
+            this.data = Arrays.copyOf(this.data, Math.max(this.length + 5, this.data.length + (this.data.length >> 1)));
+        }
+        while ((delta & ~0x7F) != 0) {
+            this.data[this.length ++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        this.data[this.length ++] = (byte) delta;
+    }
+
+    /**
+     * Arreglo ordenado de ids sin comprimir, para los cambios pendientes de compactar.
+     */
+    private static final class IdBuffer {
+        private static final int[] EMPTY = new int[0];
+        private int[] ids = EMPTY;
+        private int size = 0;
+
+        private void add(int id) {
+            var position = Arrays.binarySearch(this.ids, 0, this.size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, Math.max(4, this.size * 2));
+            }
+            System.arraycopy(this.ids, position, this.ids, position + 1, this.size - position);
+            this.ids[position] = id;
+            this.size ++;
+        }
+
+        private void remove(int id) {
+            var position = Arrays.binarySearch(this.ids, 0, this.size, id);
+            if (position >= 0) {
+                System.arraycopy(this.ids, position + 1, this.ids, position, this.size - position - 1);
+                this.size --;
+            }
+        }
+
+        private void clear() {
+            this.ids = EMPTY;
+            this.size = 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.danicode.microblogging.services.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Divide un texto en palabras normalizadas para el índice de búsqueda.
+ * <p>Convierte a minúsculas, quita acentos y diéresis ("canción" y "cancion" son la misma palabra), separa por
+ * cualquier carácter que no sea letra o número y descarta las palabras vacías más comunes del español.</p>
+ */
+public final class SpanishTokenizer {
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOPWORDS = Set.of(
+            "al", "como", "con", "de", "del", "el", "en", "es", "esta", "este", "eso", "esto", "ha", "la", "las", "le",
+            "les", "lo", "los", "me", "mi", "mas", "muy", "no", "nos", "os", "para", "pero", "por", "que", "se", "si",
+            "sin", "sobre", "su", "sus", "te", "tu", "un", "una", "uno", "unos", "unas", "ya", "yo", "y", "o", "a"
+    );
+
+    private SpanishTokenizer() { }
+
+    /**
+     * @param text Texto a dividir. Puede ser {@code null}.
+     * @return Devuelve las palabras distintas del texto, en el orden en que aparecen.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+
+        var folded = MARKS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        for (var token : SEPARATORS.split(folded)) {
+            if (token.length() >= MIN_TOKEN_LENGTH && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,19 @@
+-- Datos de ejemplo para la base de datos embebida. Todos los usuarios usan la contraseña "demo".
+
+INSERT INTO users (name, last_name, email, username, username_key, password) VALUES
+    ('Daniel', 'Castillo', 'daniel@microblogging.local', 'Dani', 'dani', 'demo'),
+    ('María', 'López', 'maria@microblogging.local', 'mlopez', 'mlopez', 'demo'),
+    ('Jorge', 'Ramírez', 'jorge@microblogging.local', 'JorgeR', 'jorger', 'demo');
+
+INSERT INTO messages (user_id_pk, date_time, message) VALUES
+    (1, '2021-11-01 09:15:00.000', '¡Hola a todos! Este es el primer mensaje del microblogging.'),
+    (2, '2021-11-01 10:02:30.000', 'Buenos días, ¿alguien más escuchando música mientras programa?'),
+    (3, '2021-11-02 18:45:10.000', 'La canción del verano ya suena en todas partes.'),
+    (1, '2021-11-03 12:00:00.000', 'Probando la búsqueda de mensajes con acentos: canción, café, programación.'),
+    (2, '2021-11-04 08:30:00.000', 'Un café y a trabajar, feliz jueves.'),
+    (3, '2021-11-05 21:10:45.000', 'Terminé el libro que me recomendaron, muy bueno.');
+
+INSERT INTO user_stats (user_id, message_count, total_length, first_post, last_post)
+SELECT u.user_id, COUNT(m.message_id), COALESCE(SUM(CHAR_LENGTH(m.message)), 0), MIN(m.date_time), MAX(m.date_time)
+FROM users AS u LEFT JOIN messages AS m ON m.user_id_pk = u.user_id
+GROUP BY u.user_id;
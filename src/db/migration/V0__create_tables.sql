@@ -0,0 +1,25 @@
+-- Tablas de la primera versión de la aplicación, tal como las usaba: date_time guardaba la fecha como texto con el
+-- formato "EEE, dd-MM-yyyy hh:mm:ss a" y la migración 1 la convierte a DATETIME(3).
+-- Usa IF NOT EXISTS para que en una base de datos creada a mano, antes de tener migraciones, esta versión sólo quede
+-- registrada. Las siguientes también se registran sin ejecutarse si sus objetos ya existen (SchemaMigrator.baseline).
+-- @baseline table users
+-- @baseline table messages
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(45) NOT NULL,
+    last_name VARCHAR(45) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    username VARCHAR(45) NOT NULL,
+    password VARCHAR(45) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages (
+    message_id INT NOT NULL AUTO_INCREMENT,
+    user_id_pk INT NOT NULL,
+    date_time VARCHAR(45) NOT NULL,
+    message VARCHAR(140) NOT NULL,
+    PRIMARY KEY (message_id),
+    CONSTRAINT fk_messages_user FOREIGN KEY (user_id_pk) REFERENCES users (user_id) ON DELETE CASCADE
+);
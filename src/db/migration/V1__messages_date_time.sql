@@ -0,0 +1,28 @@
+-- La primera versión guardaba date_time como texto con el formato "EEE, dd-MM-yyyy hh:mm:ss a" de Java en inglés,
+-- por ejemplo "Mon, 01-11-2021 09:15:00 PM". Se convierte a DATETIME(3) en una columna nueva que después reemplaza
+-- a la anterior, y se crea el índice para las consultas por rango de fechas (findByDateTime).
+-- Antes de cambiar el esquema se comprueba que todas las fechas se pueden convertir; si alguna no, la migración se
+-- detiene sin tocar nada y puede volver a ejecutarse después de corregir esas filas. No se comprueba nada después del
+-- ALTER TABLE: MySQL confirma cada cambio de esquema, así que una comprobación posterior dejaría la columna nueva.
+-- @baseline column messages.date_time TIMESTAMP
+
+SET @previous_lc_time_names = @@SESSION.lc_time_names;
+
+SET SESSION lc_time_names = 'en_US';
+
+-- @check Hay mensajes con una fecha que no tiene el formato "EEE, dd-MM-yyyy hh:mm:ss a" en inglés, corrígelos antes de migrar
+SELECT message_id, date_time FROM messages
+WHERE STR_TO_DATE(date_time, '%a, %d-%m-%Y %h:%i:%s %p') IS NULL
+LIMIT 1;
+
+ALTER TABLE messages ADD COLUMN date_time_new DATETIME(3) NULL AFTER date_time;
+
+UPDATE messages SET date_time_new = STR_TO_DATE(date_time, '%a, %d-%m-%Y %h:%i:%s %p');
+
+SET SESSION lc_time_names = @previous_lc_time_names;
+
+ALTER TABLE messages DROP COLUMN date_time;
+
+ALTER TABLE messages CHANGE COLUMN date_time_new date_time DATETIME(3) NOT NULL;
+
+CREATE INDEX ix_messages_date_time ON messages (date_time);
@@ -0,0 +1,13 @@
+-- Clave normalizada del nombre de usuario para buscarlo sin UPPER()/LOWER() sobre la columna.
+-- DAOUserImpl guarda username_key en minúsculas al registrar, y las búsquedas por nombre de usuario usan el índice
+-- único en lugar de recorrer toda la tabla.
+-- @baseline column users.username_key
+-- @baseline index users.ux_users_username_key
+
+ALTER TABLE users ADD COLUMN username_key VARCHAR(255) NULL AFTER username;
+
+UPDATE users SET username_key = LOWER(username);
+
+ALTER TABLE users MODIFY COLUMN username_key VARCHAR(255) NOT NULL;
+
+CREATE UNIQUE INDEX ux_users_username_key ON users (username_key);
@@ -0,0 +1,7 @@
+-- Índice único del correo electrónico. Junto con ux_users_username_key permite registrar usuarios con un solo INSERT:
+-- UserService.registerNewUser identifica qué dato está repetido por el nombre del índice en el error de llave duplicada.
+-- @baseline index users.ux_users_email
+
+UPDATE users SET email = LOWER(email);
+
+CREATE UNIQUE INDEX ux_users_email ON users (email);
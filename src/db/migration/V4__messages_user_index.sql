@@ -0,0 +1,5 @@
+-- Índice por autor: countByUser resuelve COUNT(*) recorriendo sólo las entradas del usuario en el índice, y los
+-- listados por usuario (paginados por message_id) lo usan también para el orden.
+-- @baseline index messages.ix_messages_user_message
+
+CREATE INDEX ix_messages_user_message ON messages (user_id_pk, message_id);
@@ -0,0 +1,18 @@
+-- Estadísticas por usuario, mantenidas por DAOUserStatsImpl en la misma transacción que cada escritura de mensajes.
+-- Leer las estadísticas de un perfil es una búsqueda por llave primaria, sin recorrer messages.
+-- @baseline table user_stats
+
+CREATE TABLE user_stats (
+    user_id INT NOT NULL,
+    message_count INT NOT NULL DEFAULT 0,
+    total_length BIGINT NOT NULL DEFAULT 0,
+    first_post DATETIME(3) NULL,
+    last_post DATETIME(3) NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT fk_user_stats_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE
+);
+
+INSERT INTO user_stats (user_id, message_count, total_length, first_post, last_post)
+SELECT u.user_id, COUNT(m.message_id), COALESCE(SUM(CHAR_LENGTH(m.message)), 0), MIN(m.date_time), MAX(m.date_time)
+FROM users AS u LEFT JOIN messages AS m ON m.user_id_pk = u.user_id
+GROUP BY u.user_id;
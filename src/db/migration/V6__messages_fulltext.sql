@@ -0,0 +1,5 @@
+-- Índice FULLTEXT para buscar mensajes por contenido con MATCH ... AGAINST (findByMessage, search y la paginación
+-- por texto).
+-- @baseline index messages.ftx_messages_message
+
+CREATE FULLTEXT INDEX ftx_messages_message ON messages (message);
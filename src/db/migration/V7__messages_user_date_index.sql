@@ -0,0 +1,5 @@
+-- Índice por autor y fecha: al borrar un mensaje, DAOUserStatsImpl recalcula la primera y la última publicación del
+-- usuario leyendo sólo el primer y el último elemento del usuario en este índice.
+-- @baseline index messages.ix_messages_user_date
+
+CREATE INDEX ix_messages_user_date ON messages (user_id_pk, date_time);
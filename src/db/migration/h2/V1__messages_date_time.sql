@@ -0,0 +1,19 @@
+-- Versión para H2 de la migración 1: PARSEDATETIME en lugar de STR_TO_DATE. Con H2 la base de datos siempre se
+-- crea con las migraciones, así que normalmente no hay filas que convertir. H2 también confirma cada cambio de
+-- esquema; si la comprobación falla, la columna nueva se queda y la migración puede volver a ejecutarse.
+-- @baseline column messages.date_time TIMESTAMP
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS date_time_new DATETIME(3) NULL;
+
+UPDATE messages SET date_time_new = PARSEDATETIME(date_time, 'EEE, dd-MM-yyyy hh:mm:ss a', 'en');
+
+-- @check Quedaron mensajes sin fecha convertida
+SELECT message_id, date_time FROM messages WHERE date_time_new IS NULL LIMIT 1;
+
+ALTER TABLE messages DROP COLUMN date_time;
+
+ALTER TABLE messages ALTER COLUMN date_time_new RENAME TO date_time;
+
+ALTER TABLE messages ALTER COLUMN date_time SET NOT NULL;
+
+CREATE INDEX ix_messages_date_time ON messages (date_time);
@@ -0,0 +1,4 @@
+-- Versión para H2 de la migración 6: H2 no tiene índices FULLTEXT, las búsquedas de texto usan LIKE, así que no hay
+-- nada que hacer.
+-- Como no crea nada, para el baseline basta con que exista la tabla.
+-- @baseline table messages